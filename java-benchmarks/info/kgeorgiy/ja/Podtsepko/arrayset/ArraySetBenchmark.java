@@ -0,0 +1,86 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction, views and set algebra of {@link ArraySet}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ArraySetBenchmark {
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private List<Integer> sorted;
+    private List<Integer> shuffled;
+    private ArraySet<Integer> set;
+    private ArraySet<Integer> half;
+    private ArraySet<Integer> small;
+    private int middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sorted = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sorted.add(2 * i);
+        }
+        shuffled = new ArrayList<>(sorted);
+        Collections.shuffle(shuffled, new Random(42));
+        set = new ArraySet<>(sorted);
+        half = new ArraySet<>(sorted.subList(size / 2, size));
+        small = new ArraySet<>(List.of(0, 2 * (size / 3), 2 * (size - 1)));
+        middle = size;
+    }
+
+    @Benchmark
+    public ArraySet<Integer> constructSorted() {
+        return new ArraySet<>(sorted);
+    }
+
+    @Benchmark
+    public ArraySet<Integer> constructShuffled() {
+        return new ArraySet<>(shuffled);
+    }
+
+    @Benchmark
+    public List<Integer> constructThroughTreeSet() {
+        // Construction before the linear bulk build
+        return new ArrayList<>(new TreeSet<>(shuffled));
+    }
+
+    @Benchmark
+    public Integer nestedViews() {
+        NavigableSet<Integer> view = set;
+        for (int i = 1; i <= 16; i++) {
+            view = view.headSet(2 * size - 2 * i, false).tailSet(2 * i, true);
+        }
+        return view.descendingSet().floor(middle);
+    }
+
+    @Benchmark
+    public ArraySet<Integer> union() {
+        return set.union(half);
+    }
+
+    @Benchmark
+    public ArraySet<Integer> intersection() {
+        return set.intersection(half);
+    }
+
+    @Benchmark
+    public ArraySet<Integer> gallopingIntersection() {
+        return set.intersection(small);
+    }
+
+    @Benchmark
+    public boolean containsAll() {
+        return set.containsAll(half);
+    }
+}
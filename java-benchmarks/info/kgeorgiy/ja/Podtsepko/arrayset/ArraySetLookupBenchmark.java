@@ -0,0 +1,56 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in {@link ArraySet} with plain binary search and with the Eytzinger index.
+ * Half of the looked up keys are present.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class ArraySetLookupBenchmark {
+    private static final int KEYS = 1 << 16;
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"binary", "eytzinger"})
+    public String layout;
+
+    private ArraySet<Integer> set;
+    private Integer[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final List<Integer> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(2 * i);
+        }
+        set = "eytzinger".equals(layout) ? ArraySet.readOptimized(elements) : new ArraySet<>(elements);
+        final Random random = new Random(42);
+        keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = random.nextInt(2 * size);
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return set.contains(keys[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public Integer ceiling() {
+        return set.ceiling(keys[next++ & (KEYS - 1)]);
+    }
+}
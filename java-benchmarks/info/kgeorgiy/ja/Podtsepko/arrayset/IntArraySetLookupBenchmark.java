@@ -0,0 +1,51 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in {@link IntArraySet} with plain binary search and with the Eytzinger index,
+ * up to sets that do not fit in the caches. Half of the looked up keys are present.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class IntArraySetLookupBenchmark {
+    private static final int KEYS = 1 << 16;
+
+    @Param({"1000", "1000000", "100000000"})
+    public int size;
+
+    @Param({"binary", "eytzinger"})
+    public String layout;
+
+    private IntArraySet set;
+    private int[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final int[] elements = new int[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = 2 * i;
+        }
+        set = "eytzinger".equals(layout) ? IntArraySet.readOptimized(elements) : new IntArraySet(elements);
+        keys = new Random(42).ints(KEYS, 0, 2 * size).toArray();
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return set.contains(keys[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public OptionalInt ceiling() {
+        return set.ceiling(keys[next++ & (KEYS - 1)]);
+    }
+}
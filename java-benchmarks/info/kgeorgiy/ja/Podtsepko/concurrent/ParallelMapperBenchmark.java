@@ -0,0 +1,60 @@
+package info.kgeorgiy.ja.Podtsepko.concurrent;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Scaling of {@link ParallelMapperImpl} with the number of threads.
+ * Every element costs the given number of xorshift rounds, so that one round
+ * measures the overhead of the queues and of the chunks on tiny tasks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelMapperBenchmark {
+    @Param({"10000", "10000000"})
+    public int size;
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int threads;
+
+    @Param({"1", "100"})
+    public int rounds;
+
+    private ParallelMapperImpl mapper;
+    private List<Integer> args;
+    private Function<Integer, Integer> f;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = new ParallelMapperImpl(threads);
+        args = IntStream.range(0, size).boxed().toList();
+        final int rounds = this.rounds;
+        f = value -> {
+            int x = value | 1;
+            for (int i = 0; i < rounds; i++) {
+                x ^= x << 13;
+                x ^= x >>> 17;
+                x ^= x << 5;
+            }
+            return x;
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mapper.close();
+    }
+
+    @Benchmark
+    public List<Integer> map() throws InterruptedException {
+        return mapper.map(f, args);
+    }
+}
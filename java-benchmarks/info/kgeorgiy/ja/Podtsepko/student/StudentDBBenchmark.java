@@ -0,0 +1,107 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries of {@link StudentDB} and of its indexed and columnar variants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+@State(Scope.Benchmark)
+public class StudentDBBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"1000"})
+    public int names;
+
+    @Param({"plain", "indexed", "columnar"})
+    public String store;
+
+    @Param({"20"})
+    public int limit;
+
+    private StudentDB db;
+    private List<Student> students;
+    private String firstName;
+    private GroupName group;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final List<Student> generated = StudentGenerator.generate(size, names, 42);
+        firstName = generated.get(0).getFirstName();
+        group = generated.get(0).getGroup();
+        switch (store) {
+            case "plain" -> {
+                db = new StudentDB();
+                students = generated;
+            }
+            case "indexed" -> {
+                final IndexedStudentDB indexed = new IndexedStudentDB(generated);
+                db = indexed;
+                students = indexed.getStudents();
+            }
+            case "columnar" -> {
+                final ColumnarStudentDB columnar = new ColumnarStudentDB(generated);
+                db = columnar;
+                students = columnar.getStudents();
+            }
+            default -> throw new IllegalArgumentException("Unknown store: " + store);
+        }
+    }
+
+    @Benchmark
+    public List<Student> sortStudentsByName() {
+        return db.sortStudentsByName(students);
+    }
+
+    @Benchmark
+    public List<Student> sortStudentsById() {
+        return db.sortStudentsById(students);
+    }
+
+    @Benchmark
+    public List<Student> findStudentsByFirstName() {
+        return db.findStudentsByFirstName(students, firstName);
+    }
+
+    @Benchmark
+    public List<Student> findStudentsByGroup() {
+        return db.findStudentsByGroup(students, group);
+    }
+
+    @Benchmark
+    public Map<String, String> findStudentNamesByGroup() {
+        return db.findStudentNamesByGroup(students, group);
+    }
+
+    @Benchmark
+    public List<String> getFirstNames() {
+        return db.getFirstNames(students);
+    }
+
+    @Benchmark
+    public Set<String> getDistinctFirstNames() {
+        return db.getDistinctFirstNames(students);
+    }
+
+    @Benchmark
+    public List<Student> findFirstStudentsByName() {
+        return db.findFirstStudentsByName(students, limit);
+    }
+
+    @Benchmark
+    public List<Student> streamFirstStudentsByName() {
+        return db.streamStudentsByName(students).limit(limit).toList();
+    }
+}
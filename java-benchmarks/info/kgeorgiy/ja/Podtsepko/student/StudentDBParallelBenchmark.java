@@ -0,0 +1,68 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the parallel mode of {@link StudentDB} with the number of threads.
+ * Zero threads stands for the sequential mode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class StudentDBParallelBenchmark {
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private StudentDB db;
+    private List<Student> students;
+    private GroupName group;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        students = StudentGenerator.generate(size, 1000, 42);
+        group = students.get(0).getGroup();
+        if (threads == 0) {
+            db = new StudentDB();
+        } else {
+            pool = new ForkJoinPool(threads);
+            db = new StudentDB(1, pool);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<Student> sortStudentsByName() {
+        return db.sortStudentsByName(students);
+    }
+
+    @Benchmark
+    public Map<String, String> findStudentNamesByGroup() {
+        return db.findStudentNamesByGroup(students, group);
+    }
+
+    @Benchmark
+    public Set<String> getDistinctFirstNames() {
+        return db.getDistinctFirstNames(students);
+    }
+}
@@ -0,0 +1,55 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible rosters of students for the benchmarks.
+ */
+class StudentGenerator {
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    private StudentGenerator() {
+    }
+
+    private static String[] names(final Random random, final int count) {
+        final String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            final char[] name = new char[4 + random.nextInt(7)];
+            name[0] = (char) ('A' + random.nextInt(26));
+            for (int j = 1; j < name.length; j++) {
+                name[j] = (char) ('a' + random.nextInt(26));
+            }
+            names[i] = new String(name);
+        }
+        return names;
+    }
+
+    /**
+     * Generates students with random ids, names and groups.
+     *
+     * @param size  number of the students
+     * @param names number of distinct first names and of distinct last names
+     * @param seed  seed of the generator
+     * @return generated students
+     */
+    static List<Student> generate(final int size, final int names, final long seed) {
+        final Random random = new Random(seed);
+        final String[] firstNames = names(random, names);
+        final String[] lastNames = names(random, names);
+        final List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student(
+                    random.nextInt(size),
+                    firstNames[random.nextInt(names)],
+                    lastNames[random.nextInt(names)],
+                    GROUPS[random.nextInt(GROUPS.length)]
+            ));
+        }
+        return students;
+    }
+}
@@ -0,0 +1,41 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the digest algorithms supported by {@link Walk} over data in memory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DigestBenchmark {
+    @Param({"MD5", "SHA-1", "SHA-256", "SHA-512/256", "XXH64"})
+    public String algorithm;
+
+    @Param({"64", "4096", "1048576"})
+    public int size;
+
+    private MessageDigest digest;
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchAlgorithmException {
+        digest = FileHasher.newDigest(algorithm);
+        data = new byte[size];
+        new Random(42).nextBytes(data);
+    }
+
+    @Benchmark
+    public byte[] digest() {
+        digest.update(data);
+        return digest.digest();
+    }
+}
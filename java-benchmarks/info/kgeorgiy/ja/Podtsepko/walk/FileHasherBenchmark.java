@@ -0,0 +1,61 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing of a file by {@link FileHasher} with different read modes, plain and as a tree.
+ * The file is hashed repeatedly, so it is served from the page cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileHasherBenchmark {
+    @Param({"SHA-1", "XXH64"})
+    public String algorithm;
+
+    @Param({"STREAM", "DIRECT", "MAPPED"})
+    public String mode;
+
+    @Param({"4096", "67108864"})
+    public int size;
+
+    @Param({"0", "4194304"})
+    public long treeChunk;
+
+    private Path file;
+    private String path;
+    private FileHasher hasher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, NoSuchAlgorithmException {
+        final byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        file = Files.createTempFile("walk-benchmark", ".bin");
+        Files.write(file, data);
+        path = file.toString();
+        hasher = new FileHasher(algorithm, FileHasher.ReadMode.valueOf(mode));
+        if (treeChunk > 0) {
+            hasher = hasher.withTree(new TreeHasher(algorithm, treeChunk));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash(path);
+    }
+}
@@ -2,24 +2,48 @@ package info.kgeorgiy.ja.Podtsepko.arrayset;
 
 import java.util.*;
 
+/**
+ * Immutable navigable set backed by a sorted array.
+ * <p>
+ * Views share the array of this set and are described only by the bounds
+ * and the direction, so a view of a view is as cheap as a view of the set.
+ */
+public class ArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    // Merges gallop over the larger set if it is this many times larger than the smaller one
+    private static final int GALLOP_RATIO = 8;
 
-public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
-    private final List<E> elements;
+    private final E[] elements;
+    private final int from;
+    private final int to;
+    // Comparator of the backing array, views in descending order reverse it
     private final Comparator<? super E> comparator;
+    private final boolean descending;
+    // Optional read-optimized index, shared by the views
+    private final Eytzinger.OfObject<E> index;
 
     public ArraySet() {
-        this.elements = Collections.emptyList();
-        this.comparator = null;
+        this((Comparator<? super E>) null);
     }
 
+    @SuppressWarnings("unchecked")
     public ArraySet(Comparator<? super E> comparator) {
-        this.elements = Collections.emptyList();
-        this.comparator = comparator;
+        this((E[]) new Object[0], 0, 0, comparator, false, null);
     }
 
-    private ArraySet(List<E> list, Comparator<? super E> comparator) {
-        this.elements = list;
+    private ArraySet(
+            E[] elements,
+            int from,
+            int to,
+            Comparator<? super E> comparator,
+            boolean descending,
+            Eytzinger.OfObject<E> index
+    ) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
         this.comparator = comparator;
+        this.descending = descending;
+        this.index = index;
     }
 
     public ArraySet(Collection<? extends E> elements) {
@@ -27,94 +51,376 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
     }
 
     public ArraySet(Collection<? extends E> elements, Comparator<? super E> comparator) {
-        SortedSet<E> set = new TreeSet<>(comparator);
-        set.addAll(elements);
-        this.elements = new ArrayList<>(set);
+        this.elements = ArraySetBuilder.sortedUnique(elements, comparator);
+        this.from = 0;
+        this.to = this.elements.length;
         this.comparator = comparator;
+        this.descending = false;
+        this.index = null;
+    }
+
+    /**
+     * Creates set of the elements with an additional search index in the Eytzinger (BFS) layout.
+     * Lookups in large sets touch fewer cache lines at the cost of more memory.
+     *
+     * @param elements   elements of the set
+     * @param comparator comparator of the elements, {@code null} for the natural order
+     * @param <E>        type of the elements
+     * @return read-optimized set
+     */
+    public static <E> ArraySet<E> readOptimized(Collection<? extends E> elements, Comparator<? super E> comparator) {
+        final E[] sorted = ArraySetBuilder.sortedUnique(elements, comparator);
+        final Eytzinger.OfObject<E> index = sorted.length <= Eytzinger.MAX_SIZE
+                ? new Eytzinger.OfObject<>(sorted, comparator)
+                : null;
+        return new ArraySet<>(sorted, 0, sorted.length, comparator, false, index);
+    }
+
+    public static <E> ArraySet<E> readOptimized(Collection<? extends E> elements) {
+        return readOptimized(elements, null);
     }
 
     @Override
     public Comparator<? super E> comparator() {
-        return comparator;
+        return descending ? Collections.reverseOrder(comparator) : comparator;
     }
 
-    private SortedSet<E> subSet(int from, int to) {
-        if (isEmpty()) {
-            return new ArraySet<E>(comparator);
-        }
-        return new ArraySet<>(elements.subList(from, to), comparator);
+    private int compare(final E left, final E right) {
+        return ArraySetBuilder.compare(comparator, left, right);
+    }
+
+    private ArraySet<E> view(final int from, final int to) {
+        return new ArraySet<>(elements, from, Math.max(from, to), comparator, descending, index);
     }
 
     @SuppressWarnings("unchecked")
-    private int compare(final E left, final E right) {
-        if (Objects.isNull(comparator)) {
-            return ((Comparable<E>) left).compareTo(right);
+    private int search(final Object element) {
+        final E key = (E) Objects.requireNonNull(element);
+        if (index == null) {
+            return Arrays.binarySearch(elements, from, to, key, comparator);
         }
-        return comparator.compare(left, right);
+        final int position = Math.min(to, Math.max(from, index.lowerBound(key)));
+        return position < to && compare(elements[position], key) == 0 ? position : -position - 1;
+    }
+
+    // Index of the greatest element less than (or equal to) the given one in the backing array, from - 1 if none
+    private int floorIndex(final E element, final boolean inclusive) {
+        final int index = search(element);
+        if (index >= 0) {
+            return inclusive ? index : index - 1;
+        }
+        return -index - 2;
+    }
+
+    // Index of the least element greater than (or equal to) the given one in the backing array, to if none
+    private int ceilingIndex(final E element, final boolean inclusive) {
+        final int index = search(element);
+        if (index >= 0) {
+            return inclusive ? index : index + 1;
+        }
+        return -index - 1;
+    }
+
+    private E elementAt(final int index) {
+        return from <= index && index < to ? elements[index] : null;
     }
 
     @Override
-    public SortedSet<E> subSet(E fromElement, E toElement) {
-        if (compare(fromElement, toElement) > 0) {
+    public E lower(E e) {
+        return elementAt(descending ? ceilingIndex(e, false) : floorIndex(e, false));
+    }
+
+    @Override
+    public E floor(E e) {
+        return elementAt(descending ? ceilingIndex(e, true) : floorIndex(e, true));
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return elementAt(descending ? floorIndex(e, true) : ceilingIndex(e, true));
+    }
+
+    @Override
+    public E higher(E e) {
+        return elementAt(descending ? floorIndex(e, false) : ceilingIndex(e, false));
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException("ArraySet is immutable");
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException("ArraySet is immutable");
+    }
+
+    // Views in the order of the backing array
+    private ArraySet<E> ascendingHead(final E toElement, final boolean inclusive) {
+        return view(from, floorIndex(toElement, inclusive) + 1);
+    }
+
+    private ArraySet<E> ascendingTail(final E fromElement, final boolean inclusive) {
+        return view(ceilingIndex(fromElement, inclusive), to);
+    }
+
+    @Override
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        if ((descending ? compare(toElement, fromElement) : compare(fromElement, toElement)) > 0) {
             throw new IllegalArgumentException("expected fromElement <= toElement");
         }
-        return subSet(indexOf(fromElement), indexOf(toElement));
+        if (descending) {
+            return view(ceilingIndex(toElement, toInclusive), floorIndex(fromElement, fromInclusive) + 1);
+        }
+        return view(ceilingIndex(fromElement, fromInclusive), floorIndex(toElement, toInclusive) + 1);
+    }
+
+    @Override
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        return descending ? ascendingTail(toElement, inclusive) : ascendingHead(toElement, inclusive);
+    }
+
+    @Override
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        return descending ? ascendingHead(fromElement, inclusive) : ascendingTail(fromElement, inclusive);
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
     }
 
     @Override
     public SortedSet<E> headSet(E toElement) {
-        return subSet(0, indexOf(toElement));
+        return headSet(toElement, false);
     }
 
     @Override
     public SortedSet<E> tailSet(E fromElement) {
-        return subSet(indexOf(fromElement), size());
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return new ArraySet<>(elements, from, to, comparator, !descending, index);
     }
 
     private E get(int index) {
         if (isEmpty()) {
             throw new NoSuchElementException();
         }
-        return elements.get(index);
+        return elements[index];
     }
 
     @Override
     public E first() {
-        return get(0);
+        return get(descending ? to - 1 : from);
     }
 
     @Override
     public E last() {
-        return get(size() - 1);
+        return get(descending ? from : to - 1);
     }
 
     @Override
     public int size() {
-        return elements.size();
+        return to - from;
     }
 
     @Override
     public boolean isEmpty() {
-        return elements.isEmpty();
+        return from == to;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
     public boolean contains(final Object element) {
-        return search(element) > -1;
+        if (index == null) {
+            return search(element) >= 0;
+        }
+        final int position = index.find((E) Objects.requireNonNull(element));
+        return from <= position && position < to;
     }
 
     @Override
-    public Iterator<E> iterator() {
-        return Collections.unmodifiableList(elements).iterator();
+    @SuppressWarnings("unchecked")
+    public boolean containsAll(final Collection<?> c) {
+        if (!(c instanceof ArraySet<?> set) || !Objects.equals(comparator(), set.comparator())) {
+            return super.containsAll(c);
+        }
+        final ArraySet<E> other = (ArraySet<E>) set;
+        if (other.size() > size()) {
+            return false;
+        }
+        for (int i = 0, j = 0; j < other.size(); i++, j++) {
+            final E element = other.at(j);
+            i = gallop(element, i);
+            if (i == size() || compareInOrder(at(i), element) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns set of the elements that are in this set or in the other collection.
+     * <p>
+     * If the collection is an {@code ArraySet} ordered the same way, the sets are merged
+     * in linear time, or by galloping over the larger set if it is much larger.
+     * Otherwise the collection is sorted first.
+     *
+     * @param other elements to add
+     * @return new set ordered as this set
+     */
+    public ArraySet<E> union(final Collection<? extends E> other) {
+        final ArraySet<E> set = sameOrder(other);
+        return merge(set, true, true, true, size() + set.size());
     }
 
+    /**
+     * Returns set of the elements that are both in this set and in the other collection.
+     * The sets are merged as in {@link #union(Collection)}.
+     *
+     * @param other elements to retain
+     * @return new set ordered as this set
+     */
+    public ArraySet<E> intersection(final Collection<? extends E> other) {
+        final ArraySet<E> set = sameOrder(other);
+        return merge(set, false, true, false, Math.min(size(), set.size()));
+    }
 
-    private int indexOf(final Object element) {
-        int index = search(element);
-        return index < 0 ? -index - 1 : index;
+    /**
+     * Returns set of the elements of this set that are not in the other collection.
+     * The sets are merged as in {@link #union(Collection)}.
+     *
+     * @param other elements to remove
+     * @return new set ordered as this set
+     */
+    public ArraySet<E> difference(final Collection<? extends E> other) {
+        return merge(sameOrder(other), true, false, false, size());
     }
 
     @SuppressWarnings("unchecked")
-    private int search(final Object element) {
-        return Collections.binarySearch(elements, (E) Objects.requireNonNull(element), comparator);
+    private ArraySet<E> sameOrder(final Collection<? extends E> other) {
+        if (other instanceof ArraySet<?> set && Objects.equals(comparator(), set.comparator())) {
+            return (ArraySet<E>) set;
+        }
+        return new ArraySet<>(other, comparator());
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArraySet<E> merge(
+            final ArraySet<E> other,
+            final boolean onlyThis,
+            final boolean both,
+            final boolean onlyOther,
+            final int capacity
+    ) {
+        final E[] result = (E[]) new Object[capacity];
+        final int n = size();
+        final int m = other.size();
+        final boolean gallop = (long) Math.min(n, m) * GALLOP_RATIO < Math.max(n, m);
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < n && j < m) {
+            final int cmp = compareInOrder(at(i), other.at(j));
+            if (cmp < 0) {
+                final int next = gallop ? gallop(other.at(j), i + 1) : i + 1;
+                if (onlyThis) {
+                    size = copy(i, next, result, size);
+                }
+                i = next;
+            } else if (cmp > 0) {
+                final int next = gallop ? other.gallop(at(i), j + 1) : j + 1;
+                if (onlyOther) {
+                    size = other.copy(j, next, result, size);
+                }
+                j = next;
+            } else {
+                if (both) {
+                    result[size++] = at(i);
+                }
+                i++;
+                j++;
+            }
+        }
+        if (onlyThis) {
+            size = copy(i, n, result, size);
+        }
+        if (onlyOther) {
+            size = other.copy(j, m, result, size);
+        }
+        final E[] elements = size == result.length ? result : Arrays.copyOf(result, size);
+        return new ArraySet<>(elements, 0, size, comparator(), false, null);
+    }
+
+    // Position-based access in the order of this set
+    private E at(final int position) {
+        return elements[descending ? to - 1 - position : from + position];
+    }
+
+    private int compareInOrder(final E left, final E right) {
+        return descending ? compare(right, left) : compare(left, right);
+    }
+
+    private int copy(final int fromPosition, final int toPosition, final E[] target, int size) {
+        if (!descending) {
+            System.arraycopy(elements, from + fromPosition, target, size, toPosition - fromPosition);
+            return size + toPosition - fromPosition;
+        }
+        for (int position = fromPosition; position < toPosition; position++) {
+            target[size++] = at(position);
+        }
+        return size;
+    }
+
+    // First position not before start with an element that is not less than the key, size() if none
+    private int gallop(final E key, final int start) {
+        int low = start;
+        int high = start;
+        int step = 1;
+        while (high < size() && compareInOrder(at(high), key) < 0) {
+            low = high + 1;
+            high = start + step;
+            step <<= 1;
+        }
+        high = Math.min(high, size());
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (compareInOrder(at(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int next = descending ? to - 1 : from;
+
+            @Override
+            public boolean hasNext() {
+                return from <= next && next < to;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final E element = elements[next];
+                next += descending ? -1 : 1;
+                return element;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import java.util.*;
+
+/**
+ * Builds sorted arrays without duplicates for the array sets.
+ * <p>
+ * Sorted input is detected and deduplicated in a single linear pass,
+ * unsorted input is sorted in place first. Of the equal elements the first one is kept.
+ */
+class ArraySetBuilder {
+    private ArraySetBuilder() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> int compare(final Comparator<? super E> comparator, final E left, final E right) {
+        if (Objects.isNull(comparator)) {
+            return ((Comparable<E>) left).compareTo(right);
+        }
+        return comparator.compare(left, right);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> E[] sortedUnique(final Collection<? extends E> values, final Comparator<? super E> comparator) {
+        final E[] elements = (E[]) values.toArray();
+        if (!isSorted(elements, comparator)) {
+            Arrays.sort(elements, comparator);
+        }
+        int size = elements.length == 0 ? 0 : 1;
+        for (int i = 1; i < elements.length; i++) {
+            if (compare(comparator, elements[size - 1], elements[i]) != 0) {
+                elements[size++] = elements[i];
+            }
+        }
+        return size == elements.length ? elements : Arrays.copyOf(elements, size);
+    }
+
+    private static <E> boolean isSorted(final E[] elements, final Comparator<? super E> comparator) {
+        for (int i = 1; i < elements.length; i++) {
+            if (compare(comparator, elements[i - 1], elements[i]) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int[] sortedUnique(final int[] values) {
+        if (!isSorted(values)) {
+            Arrays.sort(values);
+        }
+        int size = values.length == 0 ? 0 : 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[size - 1] != values[i]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    private static boolean isSorted(final int[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i - 1] > values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long[] sortedUnique(final long[] values) {
+        if (!isSorted(values)) {
+            Arrays.sort(values);
+        }
+        int size = values.length == 0 ? 0 : 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[size - 1] != values[i]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    private static boolean isSorted(final long[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i - 1] > values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static double[] sortedUnique(final double[] values) {
+        if (!isSorted(values)) {
+            Arrays.sort(values);
+        }
+        int size = values.length == 0 ? 0 : 1;
+        for (int i = 1; i < values.length; i++) {
+            if (Double.compare(values[size - 1], values[i]) != 0) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    private static boolean isSorted(final double[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (Double.compare(values[i - 1], values[i]) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,258 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class ArraySetTest {
+    private static final int DEPTH = 3;
+    private static final List<Comparator<Integer>> COMPARATORS = Arrays.asList(
+            null,
+            Comparator.reverseOrder(),
+            Comparator.comparingInt(i -> i / 3)
+    );
+
+    private final Random random = new Random(8045702385702345702L);
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(ArraySetTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    private static void assertThrows(final Class<? extends Throwable> type, final Runnable action) {
+        try {
+            action.run();
+        } catch (final Throwable e) {
+            assertTrue("expected " + type.getSimpleName() + ", found " + e, type.isInstance(e));
+            return;
+        }
+        fail("expected " + type.getSimpleName());
+    }
+
+    private List<Integer> randomList(final int size, final int bound) {
+        final List<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(random.nextInt(bound) - bound / 2);
+        }
+        return values;
+    }
+
+    private static TreeSet<Integer> treeSet(final Collection<Integer> values, final Comparator<Integer> comparator) {
+        final TreeSet<Integer> set = new TreeSet<>(comparator);
+        set.addAll(values);
+        return set;
+    }
+
+    private static int compare(final Comparator<? super Integer> comparator, final Integer left, final Integer right) {
+        return comparator == null ? left.compareTo(right) : comparator.compare(left, right);
+    }
+
+    private static <T> T orException(final Supplier<T> supplier) {
+        try {
+            return supplier.get();
+        } catch (final NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    // Compares the sets and their random views with TreeSet
+    private void check(final String context, final NavigableSet<Integer> expected, final NavigableSet<Integer> actual,
+                       final int bound, final int depth) {
+        assertEquals(context, new ArrayList<>(expected), new ArrayList<>(actual));
+        assertEquals(context, expected.size(), actual.size());
+        assertEquals(context, expected.isEmpty(), actual.isEmpty());
+        assertEquals(context, orException(expected::first), orException(actual::first));
+        assertEquals(context, orException(expected::last), orException(actual::last));
+        final List<Integer> reversed = new ArrayList<>();
+        actual.descendingIterator().forEachRemaining(reversed::add);
+        assertEquals(context, new ArrayList<>(expected.descendingSet()), reversed);
+
+        final int step = Math.max(1, bound / 100);
+        for (int probe = -bound / 2 - 2; probe <= bound / 2 + 2; probe += step) {
+            final String at = context + ", probe " + probe;
+            assertEquals(at, expected.contains(probe), actual.contains(probe));
+            assertEquals(at, expected.lower(probe), actual.lower(probe));
+            assertEquals(at, expected.floor(probe), actual.floor(probe));
+            assertEquals(at, expected.ceiling(probe), actual.ceiling(probe));
+            assertEquals(at, expected.higher(probe), actual.higher(probe));
+            final int other = random.nextInt(bound) - bound / 2;
+            assertEquals(at, Integer.signum(compare(expected.comparator(), probe, other)),
+                    Integer.signum(compare(actual.comparator(), probe, other)));
+        }
+        if (depth == 0) {
+            return;
+        }
+
+        check(context + ", descending", expected.descendingSet(), actual.descendingSet(), bound, depth - 1);
+        for (int i = 0; i < 3; i++) {
+            final int from = random.nextInt(bound) - bound / 2;
+            final int to = random.nextInt(bound) - bound / 2;
+            final boolean fromInclusive = random.nextBoolean();
+            final boolean toInclusive = random.nextBoolean();
+            // TreeSet rejects bounds outside of the range of a view, ArraySet returns the intersection
+            try {
+                check(context + ", head " + to + " " + toInclusive,
+                        expected.headSet(to, toInclusive), actual.headSet(to, toInclusive), bound, depth - 1);
+                check(context + ", tail " + from + " " + fromInclusive,
+                        expected.tailSet(from, fromInclusive), actual.tailSet(from, fromInclusive), bound, depth - 1);
+                if (compare(expected.comparator(), from, to) <= 0) {
+                    check(context + ", sub " + from + " " + fromInclusive + " " + to + " " + toInclusive,
+                            expected.subSet(from, fromInclusive, to, toInclusive),
+                            actual.subSet(from, fromInclusive, to, toInclusive),
+                            bound, depth - 1);
+                    assertEquals(context, new ArrayList<>(expected.subSet(from, to)), new ArrayList<>(actual.subSet(from, to)));
+                }
+            } catch (final IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    private void checkRandom(final BiFunction<List<Integer>, Comparator<Integer>, NavigableSet<Integer>> factory) {
+        for (final Comparator<Integer> comparator : COMPARATORS) {
+            for (final int size : new int[]{0, 1, 2, 5, 10, 100, 1000}) {
+                final int bound = Math.max(4, size * 2);
+                final List<Integer> values = randomList(size, bound);
+                check("size " + size + ", comparator " + comparator,
+                        treeSet(values, comparator), factory.apply(values, comparator), bound, DEPTH);
+            }
+        }
+    }
+
+    @Test
+    public void navigable() {
+        checkRandom(ArraySet::new);
+    }
+
+    @Test
+    public void naturalOrder() {
+        checkRandom((values, comparator) -> comparator == null ? new ArraySet<>(values) : new ArraySet<>(values, comparator));
+        assertEquals(List.of(), new ArrayList<>(new ArraySet<Integer>()));
+        assertNull(new ArraySet<>(List.of(1, 2, 3)).comparator());
+    }
+
+    @Test
+    public void readOptimized() {
+        checkRandom((values, comparator) -> comparator == null
+                ? ArraySet.readOptimized(values)
+                : ArraySet.readOptimized(values, comparator));
+        final ArraySet<String> set = ArraySet.readOptimized(List.of("b", "A", "a", "B"), String.CASE_INSENSITIVE_ORDER);
+        assertEquals(List.of("A", "b"), new ArrayList<>(set));
+        assertTrue(set.contains("B"));
+    }
+
+    private static NavigableSet<Integer> descending(final NavigableSet<Integer> set, final boolean descending) {
+        return descending ? set.descendingSet() : set;
+    }
+
+    // Compares the set operations with the bulk operations of TreeSet
+    private static void checkOperations(
+            final String context,
+            final NavigableSet<Integer> expected,
+            final ArraySet<Integer> actual,
+            final NavigableSet<Integer> otherExpected,
+            final Collection<Integer> other
+    ) {
+        final TreeSet<Integer> union = new TreeSet<>(expected);
+        union.addAll(otherExpected);
+        final TreeSet<Integer> intersection = new TreeSet<>(expected);
+        intersection.retainAll(otherExpected);
+        final TreeSet<Integer> difference = new TreeSet<>(expected);
+        difference.removeAll(otherExpected);
+
+        assertEquals(context, new ArrayList<>(union), new ArrayList<>(actual.union(other)));
+        assertEquals(context, new ArrayList<>(intersection), new ArrayList<>(actual.intersection(other)));
+        assertEquals(context, new ArrayList<>(difference), new ArrayList<>(actual.difference(other)));
+        assertEquals(context, expected.containsAll(otherExpected), actual.containsAll(other));
+        assertEquals(context, union.comparator(), actual.union(other).comparator());
+    }
+
+    @Test
+    public void operations() {
+        for (final Comparator<Integer> comparator : COMPARATORS) {
+            for (final int[] sizes : new int[][]{{0, 0}, {0, 5}, {5, 0}, {10, 10}, {100, 100}, {1000, 5}, {5, 1000}, {1000, 1000}}) {
+                final int bound = Math.max(4, Math.max(sizes[0], sizes[1]) * 2);
+                final List<Integer> values = randomList(sizes[0], bound);
+                final List<Integer> otherValues = randomList(sizes[1], bound);
+                for (final boolean descending : new boolean[]{false, true}) {
+                    final String context = "sizes " + sizes[0] + " " + sizes[1] + ", comparator " + comparator
+                            + (descending ? ", descending" : "");
+                    final NavigableSet<Integer> expected = descending(treeSet(values, comparator), descending);
+                    final NavigableSet<Integer> otherExpected = descending(treeSet(otherValues, comparator), descending);
+                    final ArraySet<Integer> actual = (ArraySet<Integer>) descending(new ArraySet<>(values, comparator), descending);
+                    final ArraySet<Integer> other = (ArraySet<Integer>) descending(new ArraySet<>(otherValues, comparator), descending);
+
+                    // Merged as sets of the same order
+                    checkOperations(context, expected, actual, otherExpected, other);
+                    // Sorted first
+                    checkOperations(context + ", list", expected, actual, otherExpected, new ArrayList<>(otherExpected));
+                    // Subsets are found by galloping
+                    final List<Integer> subset = new ArrayList<>();
+                    for (final Integer value : expected) {
+                        if (random.nextInt(10) == 0) {
+                            subset.add(value);
+                        }
+                    }
+                    final NavigableSet<Integer> subsetExpected = descending(treeSet(subset, comparator), descending);
+                    final ArraySet<Integer> subsetActual = (ArraySet<Integer>) descending(new ArraySet<>(subset, comparator), descending);
+                    checkOperations(context + ", subset", expected, actual, subsetExpected, subsetActual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void operationsKeepElementsOfThisSet() {
+        final ArraySet<String> set = new ArraySet<>(List.of("a", "B", "c"), String.CASE_INSENSITIVE_ORDER);
+        final ArraySet<String> other = new ArraySet<>(List.of("A", "b", "d"), String.CASE_INSENSITIVE_ORDER);
+        assertEquals(List.of("a", "B", "c", "d"), new ArrayList<>(set.union(other)));
+        assertEquals(List.of("a", "B"), new ArrayList<>(set.intersection(other)));
+        assertEquals(List.of("c"), new ArrayList<>(set.difference(other)));
+        assertEquals(List.of("A", "b", "c", "d"), new ArrayList<>(other.union(set)));
+        assertTrue(set.containsAll(new ArraySet<>(List.of("A", "C"), String.CASE_INSENSITIVE_ORDER)));
+        assertFalse(set.containsAll(other));
+    }
+
+    @Test
+    public void subSetOfNaturalOrder() {
+        final ArraySet<Integer> set = new ArraySet<>(List.of(3, 1, 2));
+        assertEquals(List.of(1, 2), new ArrayList<>(set.subSet(1, 3)));
+        assertEquals(List.of(3, 2), new ArrayList<>(set.descendingSet().subSet(3, 1)));
+        assertEquals(List.of(3, 2, 1), new ArrayList<>(set.descendingSet().subSet(3, true, 1, true)));
+    }
+
+    @Test
+    public void subSetBoundsOrder() {
+        final ArraySet<Integer> natural = new ArraySet<>(List.of(1, 2, 3));
+        assertThrows(IllegalArgumentException.class, () -> natural.subSet(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> natural.descendingSet().subSet(1, 3));
+        final ArraySet<Integer> reversed = new ArraySet<>(List.of(1, 2, 3), Comparator.reverseOrder());
+        assertThrows(IllegalArgumentException.class, () -> reversed.subSet(1, 3));
+        assertEquals(List.of(3, 2), new ArrayList<>(reversed.subSet(3, 1)));
+    }
+
+    @Test
+    public void keepsFirstOfEqualElements() {
+        final ArraySet<String> set = new ArraySet<>(List.of("b", "A", "a", "B"), String.CASE_INSENSITIVE_ORDER);
+        assertEquals(List.of("A", "b"), new ArrayList<>(set));
+        assertTrue(set.contains("B"));
+    }
+
+    @Test
+    public void immutable() {
+        final ArraySet<Integer> set = new ArraySet<>(List.of(1, 2, 3));
+        assertThrows(UnsupportedOperationException.class, set::pollFirst);
+        assertThrows(UnsupportedOperationException.class, set::pollLast);
+        assertThrows(UnsupportedOperationException.class, () -> set.add(4));
+        assertThrows(UnsupportedOperationException.class, () -> set.remove(1));
+        assertThrows(NoSuchElementException.class, () -> new ArraySet<Integer>().first());
+    }
+}
@@ -0,0 +1,207 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import java.util.*;
+
+/**
+ * Immutable sorted set of {@code double} values backed by a sorted array without boxing.
+ * <p>
+ * Values are ordered as by {@link Double#compare}. Views returned by
+ * {@link #headSet(double)}, {@link #tailSet(double)} and {@link #subSet(double, double)}
+ * share the array of this set.
+ */
+public class DoubleArraySet extends AbstractSet<Double> implements SortedSet<Double> {
+    private static final double[] EMPTY = new double[0];
+
+    private final double[] elements;
+    private final int from;
+    private final int to;
+    // Optional read-optimized index, shared by the views
+    private final Eytzinger.OfDouble index;
+
+    public DoubleArraySet() {
+        this(EMPTY, null, 0, 0);
+    }
+
+    /**
+     * Creates set of the values. Sorted input is detected and deduplicated
+     * in a single linear pass, unsorted input is sorted first.
+     *
+     * @param values values of the set
+     */
+    public DoubleArraySet(final double... values) {
+        elements = ArraySetBuilder.sortedUnique(values.clone());
+        index = null;
+        from = 0;
+        to = elements.length;
+    }
+
+    public DoubleArraySet(final Collection<? extends Double> values) {
+        elements = ArraySetBuilder.sortedUnique(values.stream().mapToDouble(Double::doubleValue).toArray());
+        index = null;
+        from = 0;
+        to = elements.length;
+    }
+
+    private DoubleArraySet(final double[] elements, final Eytzinger.OfDouble index, final int from, final int to) {
+        this.elements = elements;
+        this.index = index;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates set of the values with an additional search index in the Eytzinger (BFS) layout.
+     * Lookups in large sets touch fewer cache lines at the cost of twice the memory.
+     *
+     * @param values values of the set
+     * @return read-optimized set
+     */
+    public static DoubleArraySet readOptimized(final double... values) {
+        final double[] elements = ArraySetBuilder.sortedUnique(values.clone());
+        final Eytzinger.OfDouble index = elements.length <= Eytzinger.MAX_SIZE ? new Eytzinger.OfDouble(elements) : null;
+        return new DoubleArraySet(elements, index, 0, elements.length);
+    }
+
+    @Override
+    public Comparator<? super Double> comparator() {
+        return null;
+    }
+
+    /**
+     * Returns index of the value in the backing array, or {@code -(insertion point) - 1}.
+     */
+    private int search(final double value) {
+        if (index == null) {
+            return Arrays.binarySearch(elements, from, to, value);
+        }
+        final int position = Math.min(to, Math.max(from, index.lowerBound(value)));
+        return position < to && Double.compare(elements[position], value) == 0 ? position : -position - 1;
+    }
+
+    private int lowerBound(final double value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private int upperBound(final double value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    private DoubleArraySet view(final int from, final int to) {
+        return new DoubleArraySet(elements, index, from, Math.max(from, to));
+    }
+
+    public boolean contains(final double value) {
+        if (index == null) {
+            return search(value) >= 0;
+        }
+        final int position = index.find(value);
+        return from <= position && position < to;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return element instanceof Double value && contains(value.doubleValue());
+    }
+
+    /**
+     * Returns the greatest value less than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalDouble floor(final double value) {
+        final int index = upperBound(value) - 1;
+        return index >= from ? OptionalDouble.of(elements[index]) : OptionalDouble.empty();
+    }
+
+    /**
+     * Returns the least value greater than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalDouble ceiling(final double value) {
+        final int index = lowerBound(value);
+        return index < to ? OptionalDouble.of(elements[index]) : OptionalDouble.empty();
+    }
+
+    public DoubleArraySet subSet(final double fromElement, final double toElement) {
+        if (Double.compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("expected fromElement <= toElement");
+        }
+        return view(lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    public DoubleArraySet headSet(final double toElement) {
+        return view(from, lowerBound(toElement));
+    }
+
+    public DoubleArraySet tailSet(final double fromElement) {
+        return view(lowerBound(fromElement), to);
+    }
+
+    @Override
+    public DoubleArraySet subSet(final Double fromElement, final Double toElement) {
+        return subSet(fromElement.doubleValue(), toElement.doubleValue());
+    }
+
+    @Override
+    public DoubleArraySet headSet(final Double toElement) {
+        return headSet(toElement.doubleValue());
+    }
+
+    @Override
+    public DoubleArraySet tailSet(final Double fromElement) {
+        return tailSet(fromElement.doubleValue());
+    }
+
+    public double firstDouble() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements[from];
+    }
+
+    public double lastDouble() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements[to - 1];
+    }
+
+    @Override
+    public Double first() {
+        return firstDouble();
+    }
+
+    @Override
+    public Double last() {
+        return lastDouble();
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public PrimitiveIterator.OfDouble iterator() {
+        return Arrays.stream(elements, from, to).iterator();
+    }
+
+    /**
+     * Returns values of the set in ascending order.
+     *
+     * @return new array with the values
+     */
+    public double[] toDoubleArray() {
+        return Arrays.copyOfRange(elements, from, to);
+    }
+}
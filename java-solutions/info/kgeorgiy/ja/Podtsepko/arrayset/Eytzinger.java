@@ -0,0 +1,178 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import java.util.Comparator;
+
+/**
+ * Read-optimized search index over a sorted array in the Eytzinger (BFS) layout.
+ * <p>
+ * Node {@code k} of the implicit tree has children {@code 2k} and {@code 2k + 1},
+ * so the first levels share few cache lines and the descent has no data-dependent
+ * branches: every probe only chooses the next node. The index answers lower bound
+ * queries with positions in the sorted array, which keeps views of the array valid.
+ */
+abstract class Eytzinger {
+    /**
+     * Maximal number of elements, so that node numbers do not overflow.
+     */
+    static final int MAX_SIZE = (1 << 30) - 1;
+
+    // Node -> position in the sorted array, node 0 means "all elements are less"
+    private final int[] ranks;
+
+    Eytzinger(final int size) {
+        ranks = new int[size + 1];
+        ranks[0] = size;
+        fill(1, 0);
+    }
+
+    private int fill(final int node, int rank) {
+        if (node < ranks.length) {
+            rank = fill(2 * node, rank);
+            ranks[node] = rank++;
+            rank = fill(2 * node + 1, rank);
+        }
+        return rank;
+    }
+
+    int rank(final int node) {
+        return ranks[node];
+    }
+
+    /**
+     * Returns the node where the descent that went right on every
+     * "less" probe last went left.
+     */
+    static int lastLeft(final int node) {
+        return node >>> (Integer.numberOfTrailingZeros(~node) + 1);
+    }
+
+    static class OfInt extends Eytzinger {
+        private final int[] tree;
+
+        OfInt(final int[] sorted) {
+            super(sorted.length);
+            tree = new int[sorted.length + 1];
+            for (int node = 1; node < tree.length; node++) {
+                tree[node] = sorted[rank(node)];
+            }
+        }
+
+        private int node(final int value) {
+            int node = 1;
+            while (node < tree.length) {
+                node = 2 * node + (tree[node] < value ? 1 : 0);
+            }
+            return lastLeft(node);
+        }
+
+        /**
+         * Returns position of the first element that is not less than the value.
+         */
+        int lowerBound(final int value) {
+            return rank(node(value));
+        }
+
+        /**
+         * Returns position of the value, or {@code -1} if there is no such value.
+         * Absent values are rejected without touching the positions.
+         */
+        int find(final int value) {
+            final int node = node(value);
+            return node != 0 && tree[node] == value ? rank(node) : -1;
+        }
+    }
+
+    static class OfLong extends Eytzinger {
+        private final long[] tree;
+
+        OfLong(final long[] sorted) {
+            super(sorted.length);
+            tree = new long[sorted.length + 1];
+            for (int node = 1; node < tree.length; node++) {
+                tree[node] = sorted[rank(node)];
+            }
+        }
+
+        private int node(final long value) {
+            int node = 1;
+            while (node < tree.length) {
+                node = 2 * node + (tree[node] < value ? 1 : 0);
+            }
+            return lastLeft(node);
+        }
+
+        int lowerBound(final long value) {
+            return rank(node(value));
+        }
+
+        int find(final long value) {
+            final int node = node(value);
+            return node != 0 && tree[node] == value ? rank(node) : -1;
+        }
+    }
+
+    static class OfDouble extends Eytzinger {
+        private final double[] tree;
+
+        OfDouble(final double[] sorted) {
+            super(sorted.length);
+            tree = new double[sorted.length + 1];
+            for (int node = 1; node < tree.length; node++) {
+                tree[node] = sorted[rank(node)];
+            }
+        }
+
+        private int node(final double value) {
+            int node = 1;
+            while (node < tree.length) {
+                node = 2 * node + (Double.compare(tree[node], value) < 0 ? 1 : 0);
+            }
+            return lastLeft(node);
+        }
+
+        int lowerBound(final double value) {
+            return rank(node(value));
+        }
+
+        int find(final double value) {
+            final int node = node(value);
+            return node != 0 && Double.compare(tree[node], value) == 0 ? rank(node) : -1;
+        }
+    }
+
+    static class OfObject<E> extends Eytzinger {
+        private final Object[] tree;
+        private final Comparator<? super E> comparator;
+
+        OfObject(final E[] sorted, final Comparator<? super E> comparator) {
+            super(sorted.length);
+            this.comparator = comparator;
+            tree = new Object[sorted.length + 1];
+            for (int node = 1; node < tree.length; node++) {
+                tree[node] = sorted[rank(node)];
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(final int node, final E value) {
+            return ArraySetBuilder.compare(comparator, (E) tree[node], value);
+        }
+
+        private int node(final E value) {
+            int node = 1;
+            while (node < tree.length) {
+                node = 2 * node + (compare(node, value) < 0 ? 1 : 0);
+            }
+            return lastLeft(node);
+        }
+
+        int lowerBound(final E value) {
+            return rank(node(value));
+        }
+
+        int find(final E value) {
+            final int node = node(value);
+            return node != 0 && compare(node, value) == 0 ? rank(node) : -1;
+        }
+    }
+}
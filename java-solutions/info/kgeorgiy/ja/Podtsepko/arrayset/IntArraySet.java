@@ -0,0 +1,207 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import java.util.*;
+
+/**
+ * Immutable sorted set of {@code int} values backed by a sorted array without boxing.
+ * <p>
+ * Values are ordered as by {@link Integer#compare}. Views returned by
+ * {@link #headSet(int)}, {@link #tailSet(int)} and {@link #subSet(int, int)}
+ * share the array of this set.
+ */
+public class IntArraySet extends AbstractSet<Integer> implements SortedSet<Integer> {
+    private static final int[] EMPTY = new int[0];
+
+    private final int[] elements;
+    private final int from;
+    private final int to;
+    // Optional read-optimized index, shared by the views
+    private final Eytzinger.OfInt index;
+
+    public IntArraySet() {
+        this(EMPTY, null, 0, 0);
+    }
+
+    /**
+     * Creates set of the values. Sorted input is detected and deduplicated
+     * in a single linear pass, unsorted input is sorted first.
+     *
+     * @param values values of the set
+     */
+    public IntArraySet(final int... values) {
+        elements = ArraySetBuilder.sortedUnique(values.clone());
+        index = null;
+        from = 0;
+        to = elements.length;
+    }
+
+    public IntArraySet(final Collection<? extends Integer> values) {
+        elements = ArraySetBuilder.sortedUnique(values.stream().mapToInt(Integer::intValue).toArray());
+        index = null;
+        from = 0;
+        to = elements.length;
+    }
+
+    private IntArraySet(final int[] elements, final Eytzinger.OfInt index, final int from, final int to) {
+        this.elements = elements;
+        this.index = index;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates set of the values with an additional search index in the Eytzinger (BFS) layout.
+     * Lookups in large sets touch fewer cache lines at the cost of twice the memory.
+     *
+     * @param values values of the set
+     * @return read-optimized set
+     */
+    public static IntArraySet readOptimized(final int... values) {
+        final int[] elements = ArraySetBuilder.sortedUnique(values.clone());
+        final Eytzinger.OfInt index = elements.length <= Eytzinger.MAX_SIZE ? new Eytzinger.OfInt(elements) : null;
+        return new IntArraySet(elements, index, 0, elements.length);
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return null;
+    }
+
+    /**
+     * Returns index of the value in the backing array, or {@code -(insertion point) - 1}.
+     */
+    private int search(final int value) {
+        if (index == null) {
+            return Arrays.binarySearch(elements, from, to, value);
+        }
+        final int position = Math.min(to, Math.max(from, index.lowerBound(value)));
+        return position < to && elements[position] == value ? position : -position - 1;
+    }
+
+    private int lowerBound(final int value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private int upperBound(final int value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    private IntArraySet view(final int from, final int to) {
+        return new IntArraySet(elements, index, from, Math.max(from, to));
+    }
+
+    public boolean contains(final int value) {
+        if (index == null) {
+            return search(value) >= 0;
+        }
+        final int position = index.find(value);
+        return from <= position && position < to;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return element instanceof Integer value && contains(value.intValue());
+    }
+
+    /**
+     * Returns the greatest value less than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalInt floor(final int value) {
+        final int index = upperBound(value) - 1;
+        return index >= from ? OptionalInt.of(elements[index]) : OptionalInt.empty();
+    }
+
+    /**
+     * Returns the least value greater than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalInt ceiling(final int value) {
+        final int index = lowerBound(value);
+        return index < to ? OptionalInt.of(elements[index]) : OptionalInt.empty();
+    }
+
+    public IntArraySet subSet(final int fromElement, final int toElement) {
+        if (Integer.compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("expected fromElement <= toElement");
+        }
+        return view(lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    public IntArraySet headSet(final int toElement) {
+        return view(from, lowerBound(toElement));
+    }
+
+    public IntArraySet tailSet(final int fromElement) {
+        return view(lowerBound(fromElement), to);
+    }
+
+    @Override
+    public IntArraySet subSet(final Integer fromElement, final Integer toElement) {
+        return subSet(fromElement.intValue(), toElement.intValue());
+    }
+
+    @Override
+    public IntArraySet headSet(final Integer toElement) {
+        return headSet(toElement.intValue());
+    }
+
+    @Override
+    public IntArraySet tailSet(final Integer fromElement) {
+        return tailSet(fromElement.intValue());
+    }
+
+    public int firstInt() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements[from];
+    }
+
+    public int lastInt() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements[to - 1];
+    }
+
+    @Override
+    public Integer first() {
+        return firstInt();
+    }
+
+    @Override
+    public Integer last() {
+        return lastInt();
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return Arrays.stream(elements, from, to).iterator();
+    }
+
+    /**
+     * Returns values of the set in ascending order.
+     *
+     * @return new array with the values
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOfRange(elements, from, to);
+    }
+}
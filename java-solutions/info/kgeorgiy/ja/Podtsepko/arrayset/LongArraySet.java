@@ -0,0 +1,207 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import java.util.*;
+
+/**
+ * Immutable sorted set of {@code long} values backed by a sorted array without boxing.
+ * <p>
+ * Values are ordered as by {@link Long#compare}. Views returned by
+ * {@link #headSet(long)}, {@link #tailSet(long)} and {@link #subSet(long, long)}
+ * share the array of this set.
+ */
+public class LongArraySet extends AbstractSet<Long> implements SortedSet<Long> {
+    private static final long[] EMPTY = new long[0];
+
+    private final long[] elements;
+    private final int from;
+    private final int to;
+    // Optional read-optimized index, shared by the views
+    private final Eytzinger.OfLong index;
+
+    public LongArraySet() {
+        this(EMPTY, null, 0, 0);
+    }
+
+    /**
+     * Creates set of the values. Sorted input is detected and deduplicated
+     * in a single linear pass, unsorted input is sorted first.
+     *
+     * @param values values of the set
+     */
+    public LongArraySet(final long... values) {
+        elements = ArraySetBuilder.sortedUnique(values.clone());
+        index = null;
+        from = 0;
+        to = elements.length;
+    }
+
+    public LongArraySet(final Collection<? extends Long> values) {
+        elements = ArraySetBuilder.sortedUnique(values.stream().mapToLong(Long::longValue).toArray());
+        index = null;
+        from = 0;
+        to = elements.length;
+    }
+
+    private LongArraySet(final long[] elements, final Eytzinger.OfLong index, final int from, final int to) {
+        this.elements = elements;
+        this.index = index;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates set of the values with an additional search index in the Eytzinger (BFS) layout.
+     * Lookups in large sets touch fewer cache lines at the cost of twice the memory.
+     *
+     * @param values values of the set
+     * @return read-optimized set
+     */
+    public static LongArraySet readOptimized(final long... values) {
+        final long[] elements = ArraySetBuilder.sortedUnique(values.clone());
+        final Eytzinger.OfLong index = elements.length <= Eytzinger.MAX_SIZE ? new Eytzinger.OfLong(elements) : null;
+        return new LongArraySet(elements, index, 0, elements.length);
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return null;
+    }
+
+    /**
+     * Returns index of the value in the backing array, or {@code -(insertion point) - 1}.
+     */
+    private int search(final long value) {
+        if (index == null) {
+            return Arrays.binarySearch(elements, from, to, value);
+        }
+        final int position = Math.min(to, Math.max(from, index.lowerBound(value)));
+        return position < to && elements[position] == value ? position : -position - 1;
+    }
+
+    private int lowerBound(final long value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private int upperBound(final long value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    private LongArraySet view(final int from, final int to) {
+        return new LongArraySet(elements, index, from, Math.max(from, to));
+    }
+
+    public boolean contains(final long value) {
+        if (index == null) {
+            return search(value) >= 0;
+        }
+        final int position = index.find(value);
+        return from <= position && position < to;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return element instanceof Long value && contains(value.longValue());
+    }
+
+    /**
+     * Returns the greatest value less than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalLong floor(final long value) {
+        final int index = upperBound(value) - 1;
+        return index >= from ? OptionalLong.of(elements[index]) : OptionalLong.empty();
+    }
+
+    /**
+     * Returns the least value greater than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalLong ceiling(final long value) {
+        final int index = lowerBound(value);
+        return index < to ? OptionalLong.of(elements[index]) : OptionalLong.empty();
+    }
+
+    public LongArraySet subSet(final long fromElement, final long toElement) {
+        if (Long.compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("expected fromElement <= toElement");
+        }
+        return view(lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    public LongArraySet headSet(final long toElement) {
+        return view(from, lowerBound(toElement));
+    }
+
+    public LongArraySet tailSet(final long fromElement) {
+        return view(lowerBound(fromElement), to);
+    }
+
+    @Override
+    public LongArraySet subSet(final Long fromElement, final Long toElement) {
+        return subSet(fromElement.longValue(), toElement.longValue());
+    }
+
+    @Override
+    public LongArraySet headSet(final Long toElement) {
+        return headSet(toElement.longValue());
+    }
+
+    @Override
+    public LongArraySet tailSet(final Long fromElement) {
+        return tailSet(fromElement.longValue());
+    }
+
+    public long firstLong() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements[from];
+    }
+
+    public long lastLong() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements[to - 1];
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return Arrays.stream(elements, from, to).iterator();
+    }
+
+    /**
+     * Returns values of the set in ascending order.
+     *
+     * @return new array with the values
+     */
+    public long[] toLongArray() {
+        return Arrays.copyOfRange(elements, from, to);
+    }
+}
@@ -0,0 +1,177 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class MappedArraySetTest {
+    private static final int[] SIZES = {0, 1, 2, 10, 1000};
+
+    private static Path directory;
+
+    private final Random random = new Random(2390458723049587L);
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(MappedArraySetTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(MappedArraySetTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private static void assertIOException(final String context, final IOAction action) {
+        try {
+            action.run();
+            fail(context + ": expected IOException");
+        } catch (final IOException ignored) {
+        }
+    }
+
+    private int[] randomInts(final int size) {
+        final int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(4) == 0 ? random.nextInt() : random.nextInt(2 * size + 1) - size;
+        }
+        return values;
+    }
+
+    private void checkInts(final String context, final IntArraySet expected, final MappedIntArraySet actual, final int depth) {
+        assertEquals(context, new ArrayList<>(expected), new ArrayList<>(actual));
+        assertEquals(context, expected.size(), actual.size());
+        assertArrayEquals(context, expected.toIntArray(), actual.toIntArraySet().toIntArray());
+        final int[] probes = randomInts(20);
+        for (final int probe : probes) {
+            final String at = context + ", probe " + probe;
+            assertEquals(at, expected.contains(probe), actual.contains(probe));
+            assertEquals(at, expected.floor(probe), actual.floor(probe));
+            assertEquals(at, expected.ceiling(probe), actual.ceiling(probe));
+        }
+        for (final int value : expected) {
+            assertTrue(context + ", " + value, actual.contains(value));
+        }
+        if (depth > 0) {
+            final int from = Math.min(probes[0], probes[1]);
+            final int to = Math.max(probes[0], probes[1]);
+            checkInts(context + ", head " + to, expected.headSet(to), actual.headSet(to), depth - 1);
+            checkInts(context + ", tail " + from, expected.tailSet(from), actual.tailSet(from), depth - 1);
+            checkInts(context + ", sub " + from + " " + to, expected.subSet(from, to), actual.subSet(from, to), depth - 1);
+        }
+    }
+
+    private void checkLongs(final String context, final LongArraySet expected, final MappedLongArraySet actual) {
+        assertEquals(context, new ArrayList<>(expected), new ArrayList<>(actual));
+        assertArrayEquals(context, expected.toLongArray(), actual.toLongArraySet().toLongArray());
+        for (int i = 0; i < 20; i++) {
+            final long probe = random.nextLong() >> random.nextInt(64);
+            final String at = context + ", probe " + probe;
+            assertEquals(at, expected.contains(probe), actual.contains(probe));
+            assertEquals(at, expected.floor(probe), actual.floor(probe));
+            assertEquals(at, expected.ceiling(probe), actual.ceiling(probe));
+            assertEquals(at, new ArrayList<>(expected.tailSet(probe)), new ArrayList<>(actual.tailSet(probe)));
+        }
+    }
+
+    @Test
+    public void ints() throws IOException {
+        for (final int size : SIZES) {
+            final IntArraySet set = new IntArraySet(randomInts(size));
+            final Path file = directory.resolve("ints-" + size);
+            MappedIntArraySet.write(set, file);
+            checkInts("size " + size, set, MappedIntArraySet.open(file), 2);
+        }
+    }
+
+    @Test
+    public void longs() throws IOException {
+        for (final int size : SIZES) {
+            final long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = random.nextLong() >> random.nextInt(64);
+            }
+            final LongArraySet set = new LongArraySet(values);
+            final Path file = directory.resolve("longs-" + size);
+            MappedLongArraySet.write(set, file);
+            checkLongs("size " + size, set, MappedLongArraySet.open(file));
+        }
+    }
+
+    @Test
+    public void rewrite() throws IOException {
+        final Path file = directory.resolve("rewrite");
+        MappedIntArraySet.write(new IntArraySet(1, 2, 3), file);
+        final MappedIntArraySet old = MappedIntArraySet.open(file);
+        MappedIntArraySet.write(new IntArraySet(4, 5), file);
+        // The file is replaced, so the set that is already open keeps its values
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(old));
+        assertEquals(List.of(4, 5), new ArrayList<>(MappedIntArraySet.open(file)));
+        // Nested views of a view
+        assertEquals(List.of(2), new ArrayList<>(old.tailSet(2).headSet(3)));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(path -> path.toString().endsWith(".tmp")));
+        }
+    }
+
+    private static Path corrupt(final String name, final byte[] data) throws IOException {
+        return Files.write(directory.resolve(name), data);
+    }
+
+    @Test
+    public void corrupted() throws IOException {
+        final Path file = directory.resolve("valid");
+        MappedIntArraySet.write(new IntArraySet(1, 2, 3), file);
+        final byte[] valid = Files.readAllBytes(file);
+
+        assertIOException("missing", () -> MappedIntArraySet.open(directory.resolve("missing")));
+        assertIOException("empty", () -> MappedIntArraySet.open(corrupt("empty", new byte[0])));
+        assertIOException("short header", () -> MappedIntArraySet.open(corrupt("short", Arrays.copyOf(valid, 15))));
+        assertIOException("truncated", () -> MappedIntArraySet.open(corrupt("truncated", Arrays.copyOf(valid, valid.length - 1))));
+        assertIOException("trailing", () -> MappedIntArraySet.open(corrupt("trailing", Arrays.copyOf(valid, valid.length + 4))));
+        assertIOException("kind", () -> MappedLongArraySet.open(file));
+
+        final byte[] magic = valid.clone();
+        magic[0] ^= 1;
+        assertIOException("magic", () -> MappedIntArraySet.open(corrupt("magic", magic)));
+
+        final byte[] version = valid.clone();
+        version[4] = 2;
+        assertIOException("version", () -> MappedIntArraySet.open(corrupt("version", version)));
+
+        final byte[] count = valid.clone();
+        ByteBuffer.wrap(count).order(ByteOrder.LITTLE_ENDIAN).putInt(8, -1);
+        assertIOException("negative count", () -> MappedIntArraySet.open(corrupt("count", count)));
+        ByteBuffer.wrap(count).order(ByteOrder.LITTLE_ENDIAN).putInt(8, 4);
+        assertIOException("wrong count", () -> MappedIntArraySet.open(corrupt("count", count)));
+
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(MappedIntArraySet.open(file)));
+    }
+}
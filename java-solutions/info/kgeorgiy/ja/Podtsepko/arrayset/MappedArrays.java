@@ -0,0 +1,103 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Files of the memory-mapped array sets.
+ * <p>
+ * File format (little-endian): magic, version and kind of the values (two bytes each),
+ * number of the values, four reserved bytes and the sorted values without duplicates.
+ * The values start at offset 16, so they are aligned in the mapped memory.
+ */
+class MappedArrays {
+    private static final int MAGIC = 0x54455341; // ASET
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    static final short INT = 1;
+    static final short LONG = 2;
+
+    private MappedArrays() {
+    }
+
+    /**
+     * Writes values to the file, replacing it atomically.
+     *
+     * @param file  file to write
+     * @param kind  kind of the values
+     * @param width size of a value in bytes
+     * @param count number of the values
+     * @param data  writer of the values to the little-endian buffer of {@code count * width} bytes
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(
+            final Path file,
+            final short kind,
+            final int width,
+            final int count,
+            final Consumer<ByteBuffer> data
+    ) throws IOException {
+        final long size = HEADER_SIZE + (long) count * width;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Set is too large to be mapped: " + count + " values");
+        }
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(MAGIC)
+                        .putShort(VERSION)
+                        .putShort(kind)
+                        .putInt(count)
+                        .putInt(0);
+                data.accept(buffer.slice().order(ByteOrder.LITTLE_ENDIAN));
+                buffer.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps values of the file to memory in read-only mode.
+     *
+     * @param file  file to open
+     * @param kind  expected kind of the values
+     * @param width size of a value in bytes
+     * @return little-endian buffer of the values
+     * @throws IOException if an I/O error occurs or the file has another format
+     */
+    static ByteBuffer open(final Path file, final short kind, final int width) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a mapped set: " + file);
+            }
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException("Unsupported format: " + file);
+            }
+            if (buffer.getShort() != kind) {
+                throw new IOException("Set of another kind of values: " + file);
+            }
+            final int count = buffer.getInt();
+            if (count < 0 || HEADER_SIZE + (long) count * width != size) {
+                throw new IOException("Corrupted set: " + file);
+            }
+            return buffer.position(HEADER_SIZE).slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
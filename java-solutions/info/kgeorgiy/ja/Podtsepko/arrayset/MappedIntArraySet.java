@@ -0,0 +1,215 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Immutable sorted set of {@code int} values stored in a memory-mapped file.
+ * <p>
+ * The file is written once by {@link #write(IntArraySet, Path)} and then opened by
+ * {@link #open(Path)} without reading or copying the values: they stay off-heap in
+ * the page cache, which is shared by all processes that open the same file.
+ * The mapping is released when the set and all its views become unreachable.
+ */
+public class MappedIntArraySet extends AbstractSet<Integer> implements SortedSet<Integer> {
+    private final IntBuffer elements;
+    private final int from;
+    private final int to;
+
+    private MappedIntArraySet(final IntBuffer elements, final int from, final int to) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Writes the set to the file, replacing it atomically.
+     *
+     * @param set  set to write
+     * @param file file to write
+     * @throws IOException if an I/O error occurs or the set is too large to be mapped
+     */
+    public static void write(final IntArraySet set, final Path file) throws IOException {
+        final int[] values = set.toIntArray();
+        MappedArrays.write(file, MappedArrays.INT, Integer.BYTES, values.length, buffer -> buffer.asIntBuffer().put(values));
+    }
+
+    /**
+     * Opens the set written by {@link #write(IntArraySet, Path)}.
+     *
+     * @param file file to open
+     * @return read-only set backed by the file
+     * @throws IOException if an I/O error occurs or the file is not a set of {@code int} values
+     */
+    public static MappedIntArraySet open(final Path file) throws IOException {
+        final IntBuffer elements = MappedArrays.open(file, MappedArrays.INT, Integer.BYTES).asIntBuffer();
+        return new MappedIntArraySet(elements, 0, elements.limit());
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return null;
+    }
+
+    /**
+     * Returns index of the value in the buffer, or {@code -(insertion point) - 1}.
+     */
+    private int search(final int value) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int element = elements.get(middle);
+            if (element < value) {
+                low = middle + 1;
+            } else if (element > value) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private int lowerBound(final int value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private int upperBound(final int value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    private MappedIntArraySet view(final int from, final int to) {
+        return new MappedIntArraySet(elements, from, Math.max(from, to));
+    }
+
+    public boolean contains(final int value) {
+        return search(value) >= 0;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return element instanceof Integer value && contains(value.intValue());
+    }
+
+    /**
+     * Returns the greatest value less than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalInt floor(final int value) {
+        final int index = upperBound(value) - 1;
+        return index >= from ? OptionalInt.of(elements.get(index)) : OptionalInt.empty();
+    }
+
+    /**
+     * Returns the least value greater than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalInt ceiling(final int value) {
+        final int index = lowerBound(value);
+        return index < to ? OptionalInt.of(elements.get(index)) : OptionalInt.empty();
+    }
+
+    public MappedIntArraySet subSet(final int fromElement, final int toElement) {
+        if (Integer.compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("expected fromElement <= toElement");
+        }
+        return view(lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    public MappedIntArraySet headSet(final int toElement) {
+        return view(from, lowerBound(toElement));
+    }
+
+    public MappedIntArraySet tailSet(final int fromElement) {
+        return view(lowerBound(fromElement), to);
+    }
+
+    @Override
+    public MappedIntArraySet subSet(final Integer fromElement, final Integer toElement) {
+        return subSet(fromElement.intValue(), toElement.intValue());
+    }
+
+    @Override
+    public MappedIntArraySet headSet(final Integer toElement) {
+        return headSet(toElement.intValue());
+    }
+
+    @Override
+    public MappedIntArraySet tailSet(final Integer fromElement) {
+        return tailSet(fromElement.intValue());
+    }
+
+    public int firstInt() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements.get(from);
+    }
+
+    public int lastInt() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements.get(to - 1);
+    }
+
+    @Override
+    public Integer first() {
+        return firstInt();
+    }
+
+    @Override
+    public Integer last() {
+        return lastInt();
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elements.get(next++);
+            }
+        };
+    }
+
+    /**
+     * Copies values of the set to the heap.
+     *
+     * @return set with the same values
+     */
+    public IntArraySet toIntArraySet() {
+        final int[] values = new int[size()];
+        elements.get(from, values);
+        return new IntArraySet(values);
+    }
+}
@@ -0,0 +1,215 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Immutable sorted set of {@code long} values stored in a memory-mapped file.
+ * <p>
+ * The file is written once by {@link #write(LongArraySet, Path)} and then opened by
+ * {@link #open(Path)} without reading or copying the values: they stay off-heap in
+ * the page cache, which is shared by all processes that open the same file.
+ * The mapping is released when the set and all its views become unreachable.
+ */
+public class MappedLongArraySet extends AbstractSet<Long> implements SortedSet<Long> {
+    private final LongBuffer elements;
+    private final int from;
+    private final int to;
+
+    private MappedLongArraySet(final LongBuffer elements, final int from, final int to) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Writes the set to the file, replacing it atomically.
+     *
+     * @param set  set to write
+     * @param file file to write
+     * @throws IOException if an I/O error occurs or the set is too large to be mapped
+     */
+    public static void write(final LongArraySet set, final Path file) throws IOException {
+        final long[] values = set.toLongArray();
+        MappedArrays.write(file, MappedArrays.LONG, Long.BYTES, values.length, buffer -> buffer.asLongBuffer().put(values));
+    }
+
+    /**
+     * Opens the set written by {@link #write(LongArraySet, Path)}.
+     *
+     * @param file file to open
+     * @return read-only set backed by the file
+     * @throws IOException if an I/O error occurs or the file is not a set of {@code long} values
+     */
+    public static MappedLongArraySet open(final Path file) throws IOException {
+        final LongBuffer elements = MappedArrays.open(file, MappedArrays.LONG, Long.BYTES).asLongBuffer();
+        return new MappedLongArraySet(elements, 0, elements.limit());
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return null;
+    }
+
+    /**
+     * Returns index of the value in the buffer, or {@code -(insertion point) - 1}.
+     */
+    private int search(final long value) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long element = elements.get(middle);
+            if (element < value) {
+                low = middle + 1;
+            } else if (element > value) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private int lowerBound(final long value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private int upperBound(final long value) {
+        final int index = search(value);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    private MappedLongArraySet view(final int from, final int to) {
+        return new MappedLongArraySet(elements, from, Math.max(from, to));
+    }
+
+    public boolean contains(final long value) {
+        return search(value) >= 0;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return element instanceof Long value && contains(value.longValue());
+    }
+
+    /**
+     * Returns the greatest value less than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalLong floor(final long value) {
+        final int index = upperBound(value) - 1;
+        return index >= from ? OptionalLong.of(elements.get(index)) : OptionalLong.empty();
+    }
+
+    /**
+     * Returns the least value greater than or equal to the given one.
+     *
+     * @param value the value to match
+     * @return found value, or empty if there is no such value
+     */
+    public OptionalLong ceiling(final long value) {
+        final int index = lowerBound(value);
+        return index < to ? OptionalLong.of(elements.get(index)) : OptionalLong.empty();
+    }
+
+    public MappedLongArraySet subSet(final long fromElement, final long toElement) {
+        if (Long.compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("expected fromElement <= toElement");
+        }
+        return view(lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    public MappedLongArraySet headSet(final long toElement) {
+        return view(from, lowerBound(toElement));
+    }
+
+    public MappedLongArraySet tailSet(final long fromElement) {
+        return view(lowerBound(fromElement), to);
+    }
+
+    @Override
+    public MappedLongArraySet subSet(final Long fromElement, final Long toElement) {
+        return subSet(fromElement.longValue(), toElement.longValue());
+    }
+
+    @Override
+    public MappedLongArraySet headSet(final Long toElement) {
+        return headSet(toElement.longValue());
+    }
+
+    @Override
+    public MappedLongArraySet tailSet(final Long fromElement) {
+        return tailSet(fromElement.longValue());
+    }
+
+    public long firstLong() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements.get(from);
+    }
+
+    public long lastLong() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elements.get(to - 1);
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elements.get(next++);
+            }
+        };
+    }
+
+    /**
+     * Copies values of the set to the heap.
+     *
+     * @return set with the same values
+     */
+    public LongArraySet toLongArraySet() {
+        final long[] values = new long[size()];
+        elements.get(from, values);
+        return new LongArraySet(values);
+    }
+}
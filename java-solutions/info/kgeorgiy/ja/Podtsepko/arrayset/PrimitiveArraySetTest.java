@@ -0,0 +1,269 @@
+package info.kgeorgiy.ja.Podtsepko.arrayset;
+
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveArraySetTest {
+    private static final int DEPTH = 2;
+    private static final double[] SPECIAL_DOUBLES = {
+            -0.0, 0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE
+    };
+
+    private final Random random = new Random(3457023457023457L);
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(PrimitiveArraySetTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    private static void assertThrows(final Class<? extends Throwable> type, final Runnable action) {
+        try {
+            action.run();
+        } catch (final Throwable e) {
+            assertTrue("expected " + type.getSimpleName() + ", found " + e, type.isInstance(e));
+            return;
+        }
+        fail("expected " + type.getSimpleName());
+    }
+
+    /**
+     * Set of primitive values seen through its boxed values.
+     *
+     * @param name     name of the type in messages
+     * @param create   creates the set of the values
+     * @param floor    primitive floor, {@code null} if there is no such value
+     * @param ceiling  primitive ceiling, {@code null} if there is no such value
+     * @param contains primitive contains
+     * @param value    random value for the given bound
+     */
+    private record Type<T extends Comparable<T>, S extends SortedSet<T>>(
+            String name,
+            Function<List<T>, S> create,
+            BiFunction<S, T, T> floor,
+            BiFunction<S, T, T> ceiling,
+            BiPredicate<S, T> contains,
+            BiFunction<Random, Integer, T> value
+    ) {
+    }
+
+    private static Integer randomInt(final Random random, final int bound) {
+        return switch (random.nextInt(20)) {
+            case 0 -> Integer.MIN_VALUE;
+            case 1 -> Integer.MAX_VALUE;
+            default -> random.nextInt(bound) - bound / 2;
+        };
+    }
+
+    private static Long randomLong(final Random random, final int bound) {
+        return switch (random.nextInt(20)) {
+            case 0 -> Long.MIN_VALUE;
+            case 1 -> Long.MAX_VALUE;
+            default -> (random.nextInt(bound) - bound / 2) * 3_000_000_000L;
+        };
+    }
+
+    private static Double randomDouble(final Random random, final int bound) {
+        return random.nextInt(4) == 0
+                ? SPECIAL_DOUBLES[random.nextInt(SPECIAL_DOUBLES.length)]
+                : (random.nextInt(bound) - bound / 2) / 2.0;
+    }
+
+    private static final Type<Integer, IntArraySet> INTS = new Type<>(
+            "int",
+            values -> new IntArraySet(values.stream().mapToInt(Integer::intValue).toArray()),
+            (set, value) -> set.floor(value).isPresent() ? set.floor(value).getAsInt() : null,
+            (set, value) -> set.ceiling(value).isPresent() ? set.ceiling(value).getAsInt() : null,
+            IntArraySet::contains,
+            PrimitiveArraySetTest::randomInt
+    );
+
+    private static final Type<Integer, IntArraySet> INTS_OPTIMIZED = new Type<>(
+            "read-optimized int",
+            values -> IntArraySet.readOptimized(values.stream().mapToInt(Integer::intValue).toArray()),
+            (set, value) -> set.floor(value).isPresent() ? set.floor(value).getAsInt() : null,
+            (set, value) -> set.ceiling(value).isPresent() ? set.ceiling(value).getAsInt() : null,
+            IntArraySet::contains,
+            PrimitiveArraySetTest::randomInt
+    );
+
+    private static final Type<Long, LongArraySet> LONGS = new Type<>(
+            "long",
+            values -> new LongArraySet(values.stream().mapToLong(Long::longValue).toArray()),
+            (set, value) -> set.floor(value).isPresent() ? set.floor(value).getAsLong() : null,
+            (set, value) -> set.ceiling(value).isPresent() ? set.ceiling(value).getAsLong() : null,
+            LongArraySet::contains,
+            PrimitiveArraySetTest::randomLong
+    );
+
+    private static final Type<Long, LongArraySet> LONGS_OPTIMIZED = new Type<>(
+            "read-optimized long",
+            values -> LongArraySet.readOptimized(values.stream().mapToLong(Long::longValue).toArray()),
+            (set, value) -> set.floor(value).isPresent() ? set.floor(value).getAsLong() : null,
+            (set, value) -> set.ceiling(value).isPresent() ? set.ceiling(value).getAsLong() : null,
+            LongArraySet::contains,
+            PrimitiveArraySetTest::randomLong
+    );
+
+    private static final Type<Double, DoubleArraySet> DOUBLES = new Type<>(
+            "double",
+            values -> new DoubleArraySet(values.stream().mapToDouble(Double::doubleValue).toArray()),
+            (set, value) -> set.floor(value).isPresent() ? set.floor(value).getAsDouble() : null,
+            (set, value) -> set.ceiling(value).isPresent() ? set.ceiling(value).getAsDouble() : null,
+            DoubleArraySet::contains,
+            PrimitiveArraySetTest::randomDouble
+    );
+
+    private static final Type<Double, DoubleArraySet> DOUBLES_OPTIMIZED = new Type<>(
+            "read-optimized double",
+            values -> DoubleArraySet.readOptimized(values.stream().mapToDouble(Double::doubleValue).toArray()),
+            (set, value) -> set.floor(value).isPresent() ? set.floor(value).getAsDouble() : null,
+            (set, value) -> set.ceiling(value).isPresent() ? set.ceiling(value).getAsDouble() : null,
+            DoubleArraySet::contains,
+            PrimitiveArraySetTest::randomDouble
+    );
+
+    // Compares the set and its random views with TreeSet
+    @SuppressWarnings("unchecked")
+    private <T extends Comparable<T>, S extends SortedSet<T>> void check(
+            final String context,
+            final Type<T, S> type,
+            final NavigableSet<T> expected,
+            final S actual,
+            final int bound,
+            final int depth
+    ) {
+        assertEquals(context, new ArrayList<>(expected), new ArrayList<>(actual));
+        assertEquals(context, expected.size(), actual.size());
+        assertEquals(context, expected.isEmpty(), actual.isEmpty());
+        assertEquals(context, expected, actual);
+        assertNull(context, actual.comparator());
+        if (expected.isEmpty()) {
+            assertThrows(NoSuchElementException.class, actual::first);
+            assertThrows(NoSuchElementException.class, actual::last);
+        } else {
+            assertEquals(context, expected.first(), actual.first());
+            assertEquals(context, expected.last(), actual.last());
+        }
+
+        final List<T> probes = new ArrayList<>(expected);
+        for (int i = 0; i < 50; i++) {
+            probes.add(type.value().apply(random, bound));
+        }
+        for (final T probe : probes) {
+            final String at = context + ", probe " + probe;
+            assertEquals(at, expected.contains(probe), actual.contains(probe));
+            assertEquals(at, expected.contains(probe), type.contains().test(actual, probe));
+            assertEquals(at, expected.floor(probe), type.floor().apply(actual, probe));
+            assertEquals(at, expected.ceiling(probe), type.ceiling().apply(actual, probe));
+        }
+        assertFalse(context, actual.contains("0"));
+        if (depth == 0) {
+            return;
+        }
+
+        for (int i = 0; i < 3; i++) {
+            final T from = probes.get(random.nextInt(probes.size()));
+            final T to = probes.get(random.nextInt(probes.size()));
+            // TreeSet rejects bounds outside of the range of a view, array sets return the intersection
+            try {
+                check(context + ", head " + to, type, expected.headSet(to, false), (S) actual.headSet(to), bound, depth - 1);
+                check(context + ", tail " + from, type, expected.tailSet(from, true), (S) actual.tailSet(from), bound, depth - 1);
+                if (from.compareTo(to) <= 0) {
+                    check(context + ", sub " + from + " " + to, type,
+                            expected.subSet(from, true, to, false), (S) actual.subSet(from, to), bound, depth - 1);
+                } else {
+                    assertThrows(IllegalArgumentException.class, () -> actual.subSet(from, to));
+                }
+            } catch (final IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    private <T extends Comparable<T>, S extends SortedSet<T>> void checkRandom(final Type<T, S> type) {
+        for (final int size : new int[]{0, 1, 2, 5, 10, 100, 1000}) {
+            final int bound = Math.max(4, size * 2);
+            final List<T> values = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                values.add(type.value().apply(random, bound));
+            }
+            final TreeSet<T> expected = new TreeSet<>(values);
+            check(type.name() + " " + size, type, expected, type.create().apply(values), bound, DEPTH);
+            // Sorted input with duplicates takes the linear path
+            final List<T> sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+            check(type.name() + " sorted " + size, type, expected, type.create().apply(sorted), bound, DEPTH);
+        }
+    }
+
+    @Test
+    public void ints() {
+        checkRandom(INTS);
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(new IntArraySet(List.of(3, 1, 2, 1))));
+        assertArrayEquals(new int[]{1, 2, 3}, new IntArraySet(3, 1, 2, 1).toIntArray());
+        assertArrayEquals(new int[]{2}, new IntArraySet(3, 1, 2, 1).subSet(2, 3).toIntArray());
+        assertEquals(List.of(), new ArrayList<>(new IntArraySet()));
+    }
+
+    @Test
+    public void longs() {
+        checkRandom(LONGS);
+        assertEquals(List.of(1L, 2L, 3L), new ArrayList<>(new LongArraySet(List.of(3L, 1L, 2L, 1L))));
+        assertArrayEquals(new long[]{1, 2, 3}, new LongArraySet(3, 1, 2, 1).toLongArray());
+        assertEquals(List.of(), new ArrayList<>(new LongArraySet()));
+    }
+
+    @Test
+    public void doubles() {
+        checkRandom(DOUBLES);
+        assertEquals(List.of(1.0, 2.0, 3.0), new ArrayList<>(new DoubleArraySet(List.of(3.0, 1.0, 2.0, 1.0))));
+        assertEquals(List.of(), new ArrayList<>(new DoubleArraySet()));
+    }
+
+    @Test
+    public void readOptimized() {
+        checkRandom(INTS_OPTIMIZED);
+        checkRandom(LONGS_OPTIMIZED);
+        checkRandom(DOUBLES_OPTIMIZED);
+    }
+
+    @Test
+    public void doubleOrder() {
+        checkDoubleOrder(new DoubleArraySet(Double.NaN, 0.0, -0.0, 1.0, Double.NaN, Double.NEGATIVE_INFINITY));
+        checkDoubleOrder(DoubleArraySet.readOptimized(Double.NaN, 0.0, -0.0, 1.0, Double.NaN, Double.NEGATIVE_INFINITY));
+        assertFalse(new DoubleArraySet(0.0).contains(-0.0));
+        assertFalse(new DoubleArraySet(-0.0).contains(0.0));
+        assertFalse(DoubleArraySet.readOptimized(0.0).contains(-0.0));
+        assertFalse(DoubleArraySet.readOptimized(-0.0).contains(0.0));
+    }
+
+
+    private static void checkDoubleOrder(final DoubleArraySet set) {
+        // Values are ordered as by Double.compare: -0.0 < 0.0 and NaN is the greatest value
+        assertArrayEquals(new double[]{Double.NEGATIVE_INFINITY, -0.0, 0.0, 1.0, Double.NaN}, set.toDoubleArray(), 0);
+        assertTrue(set.contains(Double.NaN));
+        assertTrue(set.contains(-0.0));
+        assertEquals(Double.NaN, set.ceiling(Double.POSITIVE_INFINITY).getAsDouble(), 0);
+        assertEquals(-0.0, set.floor(-Double.MIN_VALUE / 2).getAsDouble(), 0);
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(set.floor(-0.0).getAsDouble()));
+        assertEquals(List.of(0.0, 1.0), new ArrayList<>(set.subSet(0.0, Double.NaN)));
+    }
+
+    @Test
+    public void immutable() {
+        assertThrows(UnsupportedOperationException.class, () -> new IntArraySet(1).add(2));
+        assertThrows(UnsupportedOperationException.class, () -> new LongArraySet(1).remove(1L));
+        assertThrows(UnsupportedOperationException.class, () -> new DoubleArraySet(1).clear());
+    }
+}
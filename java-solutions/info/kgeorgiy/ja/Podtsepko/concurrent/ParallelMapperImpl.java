@@ -3,26 +3,61 @@ package info.kgeorgiy.ja.Podtsepko.concurrent;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.IntStream;
 
+/**
+ * Maps lists in parallel by a fixed number of threads.
+ * <p>
+ * Every worker has its own lock-free queue of jobs; submitters spread jobs over the queues
+ * and an idle worker steals jobs from the queues of other workers. Semaphores count queued
+ * jobs, so that idle workers sleep without a shared monitor, and free slots, so that at most
+ * {@link #MAX_SIZE} jobs are queued and submitters wait for the workers.
+ * <p>
+ * A {@link #map} call is a single batch processed by at most one job per worker. Jobs pull
+ * chunks of consecutive elements from the batch; the size of a chunk is chosen from the
+ * observed cost of the elements, so that a chunk takes about {@link #CHUNK_NANOS}, and
+ * completion is counted once per chunk. After a chunk the job goes back to the end of a
+ * queue, so batches that are in flight at the same time share the workers fairly.
+ * <p>
+ * {@link #mapAsync} submits a batch without waiting for it, so successive batches may
+ * overlap; {@link #map} is {@code mapAsync} followed by waiting for the result.
+ * <p>
+ * A batch stops as soon as its result is completed: by a failure of the function, by
+ * cancellation, by a timeout or by {@link #close()}, which cancels all pending batches.
+ */
 public class ParallelMapperImpl implements ParallelMapper {
     private final List<Thread> threads;
-    private final Queue<Runnable> jobs;
+    private final List<Queue<Runnable>> queues;
+    // Number of queued jobs, every worker takes a permit before taking a job
+    private final Semaphore queued = new Semaphore(0);
+    // Number of free places for jobs
+    private final Semaphore free = new Semaphore(MAX_SIZE);
+    // Batches that are not completed yet
+    private final Set<Batch<?, ?>> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
     final static int MAX_SIZE = 10_000;
+    final static long CHUNK_NANOS = 50_000; // 50 us
+    private final static long NO_DEADLINE = Long.MAX_VALUE;
 
-    private Thread newThread() {
+    private Thread newThread(final int index) {
         Thread thread = new Thread(() -> {
             try {
-                while (!Thread.interrupted()) {
-                    final Runnable job;
-                    synchronized (jobs) {
-                        while (jobs.isEmpty()) {
-                            jobs.wait();
-                        }
-                        job = jobs.poll();
-                        jobs.notify();
-                    }
+                // The flag is checked too, as the function may swallow the interrupt
+                while (!closed && !Thread.interrupted()) {
+                    queued.acquire();
+                    final Runnable job = take(index);
+                    free.release();
                     job.run();
                 }
             } catch (final InterruptedException ignored) {
@@ -34,6 +69,30 @@ public class ParallelMapperImpl implements ParallelMapper {
         return thread;
     }
 
+    // Takes a job from the own queue or steals it from another one.
+    // The permit of queued guarantees that some queue has a job for this worker.
+    private Runnable take(final int index) {
+        while (true) {
+            for (int i = 0; i < queues.size(); i++) {
+                final Runnable job = queues.get((index + i) % queues.size()).poll();
+                if (job != null) {
+                    return job;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Puts the job to the end of a random queue, fails if there is no free place
+    private boolean requeue(final Runnable job) {
+        if (!free.tryAcquire()) {
+            return false;
+        }
+        queues.get(ThreadLocalRandom.current().nextInt(queues.size())).add(job);
+        queued.release();
+        return true;
+    }
+
     /**
      * Creates Parallel Mapper instance.
      *
@@ -45,60 +104,246 @@ public class ParallelMapperImpl implements ParallelMapper {
         if (threads < 1) {
             throw new IllegalArgumentException("threads should be greater than 1");
         }
-        jobs = new ArrayDeque<>();
-        this.threads = IntStream.range(0, threads).mapToObj(i -> newThread()).toList();
+        queues = IntStream.range(0, threads).<Queue<Runnable>>mapToObj(i -> new ConcurrentLinkedQueue<>()).toList();
+        this.threads = IntStream.range(0, threads).mapToObj(this::newThread).toList();
     }
 
-    private static class JobResult<R> {
-        final List<R> values;
-        int completed;
+    private class Batch<T, R> implements Runnable {
+        private final Function<? super T, ? extends R> f;
+        private final List<? extends T> args;
+        private final ObjIntConsumer<? super R> consumer;
+        private final Object[] values;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<List<R>> result = new CompletableFuture<>();
+        // Estimated cost of an element, 0 if nothing is measured yet
+        private volatile long nanosPerElement;
 
-        public JobResult(final int size) {
-            this.values = new ArrayList<>(Collections.nCopies(size, null));
-            completed = 0;
+        Batch(
+                final Function<? super T, ? extends R> f,
+                final List<? extends T> args,
+                final ObjIntConsumer<? super R> consumer) {
+            this.f = f;
+            this.args = args;
+            this.consumer = consumer;
+            this.values = new Object[args.size()];
+            this.remaining = new AtomicInteger(args.size());
         }
 
-        public void set(final int index, final R value) {
-            values.set(index, value);
-            synchronized (this) {
-                if (++completed == values.size()) {
-                    notify();
-                }
+        private int chunkSize() {
+            final long cost = nanosPerElement;
+            if (cost == 0) {
+                return 1;
             }
+            // Leave enough chunks at the end for all workers to finish at about the same time
+            final int limit = Math.max(1, (values.length - next.get()) / (2 * threads.size()));
+            return (int) Math.max(1, Math.min(limit, CHUNK_NANOS / cost));
         }
 
-        public synchronized List<R> get() throws InterruptedException {
-            while (completed != values.size()) {
-                wait();
-            }
-            return values;
+        @SuppressWarnings("unchecked")
+        private void complete() {
+            result.complete((List<R>) Arrays.asList(values));
         }
-    }
 
-    private boolean full() {
-        return jobs.size() == MAX_SIZE;
+        @Override
+        public void run() {
+            do {
+                final int chunk = chunkSize();
+                final int from = next.getAndAdd(chunk);
+                if (from >= values.length || result.isDone()) {
+                    return;
+                }
+                final int to = Math.min(values.length, from + chunk);
+                final long start = System.nanoTime();
+                try {
+                    for (int i = from; i < to; i++) {
+                        // A cancelled or timed out batch does not start its remaining elements
+                        if (result.isDone()) {
+                            return;
+                        }
+                        final R value = f.apply(args.get(i));
+                        values[i] = value;
+                        if (consumer != null) {
+                            consumer.accept(value, i);
+                        }
+                    }
+                } catch (final Throwable e) {
+                    // Checked exceptions thrown sneakily must not kill the worker either
+                    result.completeExceptionally(e);
+                    return;
+                }
+                final long cost = Math.max(1, (System.nanoTime() - start) / (to - from));
+                final long estimate = nanosPerElement;
+                nanosPerElement = estimate == 0 ? cost : (3 * estimate + cost) / 4;
+                if (remaining.addAndGet(from - to) == 0) {
+                    complete();
+                }
+            } while (next.get() < values.length && !result.isDone() && !requeue(this));
+        }
     }
 
     @Override
     public <T, R> List<R> map(
             final Function<? super T, ? extends R> f,
             final List<? extends T> args) throws InterruptedException {
-        final JobResult<R> result = new JobResult<>(args.size());
-        for (int i = 0; i < args.size(); ++i) {
-            synchronized (jobs) {
-                while (full()) {
-                    jobs.wait();
+        final CompletableFuture<List<R>> future = mapAsync(f, args);
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            throw failure(e);
+        } catch (final InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the list like {@link #map(Function, List)}, but waits at most the given time.
+     * The remaining elements are skipped if the time runs out.
+     *
+     * @param f       function to apply
+     * @param args    elements to map
+     * @param timeout maximal time to wait
+     * @param unit    unit of the timeout
+     * @return list of the results
+     *
+     * @throws InterruptedException if interrupted while waiting
+     * @throws TimeoutException     if the time runs out
+     * @throws java.util.concurrent.CancellationException if the mapper is closed
+     */
+    public <T, R> List<R> map(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final long timeout,
+            final TimeUnit unit) throws InterruptedException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final Batch<T, R> batch = new Batch<>(f, args, null);
+        // The deadline applies to waiting for free places in the queues too
+        if (!submit(batch, deadline)) {
+            throw new TimeoutException();
+        }
+        try {
+            return batch.result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (final ExecutionException e) {
+            throw failure(e);
+        } catch (final InterruptedException | TimeoutException e) {
+            batch.result.cancel(false);
+            throw e;
+        }
+    }
+
+    private static RuntimeException failure(final ExecutionException e) {
+        if (e.getCause() instanceof Error error) {
+            throw error;
+        }
+        return e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+    }
+
+    /**
+     * Maps the list without waiting for the result.
+     * Waits only while the queues of the mapper are full.
+     * <p>
+     * The future fails with the first exception of the function. Completing the future,
+     * for example by {@link CompletableFuture#cancel cancel} or
+     * {@link CompletableFuture#orTimeout orTimeout}, skips the remaining elements.
+     * If the mapper is closed, the future is cancelled.
+     *
+     * @param f    function to apply
+     * @param args elements to map
+     * @return future of the list of the results
+     *
+     * @throws InterruptedException if interrupted while waiting for a free place in the queues
+     */
+    public <T, R> CompletableFuture<List<R>> mapAsync(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args) throws InterruptedException {
+        final Batch<T, R> batch = new Batch<>(f, args, null);
+        submit(batch, NO_DEADLINE);
+        return batch.result;
+    }
+
+    /**
+     * Maps the list without waiting for the result and passes every result to the consumer
+     * as soon as it is computed, so results arrive in the order of completion.
+     * The consumer is called from the threads of the mapper, possibly concurrently.
+     *
+     * @param f        function to apply
+     * @param args     elements to map
+     * @param consumer consumer of the results and of their indices in the list
+     * @return future of the list of the results, completed after all calls of the consumer
+     *
+     * @throws InterruptedException if interrupted while waiting for a free place in the queues
+     */
+    public <T, R> CompletableFuture<List<R>> mapAsync(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final ObjIntConsumer<? super R> consumer) throws InterruptedException {
+        final Batch<T, R> batch = new Batch<>(f, args, Objects.requireNonNull(consumer));
+        submit(batch, NO_DEADLINE);
+        return batch.result;
+    }
+
+    // Waits for a free place in the queues until the deadline
+    private boolean acquire(final long deadline) throws InterruptedException {
+        if (deadline == NO_DEADLINE) {
+            free.acquire();
+            return true;
+        }
+        return free.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    // Queues the jobs of the batch, returns false if the time runs out
+    private boolean submit(final Batch<?, ?> batch, final long deadline) throws InterruptedException {
+        if (batch.values.length == 0) {
+            batch.complete();
+            return true;
+        }
+        pending.add(batch);
+        batch.result.whenComplete((result, e) -> pending.remove(batch));
+        final int start = ThreadLocalRandom.current().nextInt(queues.size());
+        try {
+            for (int i = 0; i < Math.min(queues.size(), batch.values.length); ++i) {
+                if (!acquire(deadline)) {
+                    // As for the interruption below
+                    batch.result.cancel(false);
+                    return false;
+                }
+                // Checked after every acquire, as close() wakes up waiting submitters
+                if (closed) {
+                    // Pass the place on to the next waiting submitter
+                    free.release();
+                    batch.result.cancel(false);
+                    break;
                 }
-                final int position = i;
-                jobs.add(() -> result.set(position, f.apply(args.get(position))));
-                jobs.notify();
+                queues.get((start + i) % queues.size()).add(batch);
+                queued.release();
             }
+        } catch (final InterruptedException e) {
+            // Nobody waits for the batch, so the jobs that are already queued must do nothing
+            batch.result.cancel(false);
+            throw e;
         }
-        return result.get();
+        return true;
     }
 
+    /**
+     * Stops the threads. Pending calls of {@link #map} fail with
+     * {@link java.util.concurrent.CancellationException} and futures
+     * returned by {@link #mapAsync} are cancelled.
+     */
     @Override
     public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        for (final Batch<?, ?> batch : pending) {
+            batch.result.cancel(false);
+        }
+        // Wake up a submitter waiting for a free place, it passes the place on to the next one
+        free.release();
         for (Thread thread : threads) {
             thread.interrupt();
             try {
@@ -0,0 +1,540 @@
+package info.kgeorgiy.ja.Podtsepko.concurrent;
+
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelMapperImplTest {
+    private static final List<Integer> THREADS = List.of(1, 2, 4);
+    private static final List<Integer> SIZES = List.of(0, 1, 5, 100, 10_000);
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(ParallelMapperImplTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    private static List<Integer> range(final int size) {
+        return IntStream.range(0, size).boxed().toList();
+    }
+
+    private static <T, R> List<R> sequential(final Function<? super T, ? extends R> f, final List<? extends T> args) {
+        final List<R> result = new ArrayList<>(args.size());
+        for (final T arg : args) {
+            result.add(f.apply(arg));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> RuntimeException sneakyThrow(final Throwable e) throws E {
+        throw (E) e;
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Blocks all workers until the latch is released and fills the queues but the given number of places
+    private static void block(
+            final ParallelMapperImpl mapper,
+            final int threads,
+            final CountDownLatch release,
+            final int places) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(threads);
+        mapper.mapAsync(i -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return i;
+        }, range(threads));
+        started.await();
+        for (int i = places; i < ParallelMapperImpl.MAX_SIZE; i++) {
+            mapper.mapAsync(Function.identity(), range(1));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void map() throws InterruptedException {
+        final Function<Integer, String> f = i -> Integer.toString(i * i);
+        for (final int threads : THREADS) {
+            try (final ParallelMapperImpl mapper = new ParallelMapperImpl(threads)) {
+                for (final int size : SIZES) {
+                    final List<Integer> args = range(size);
+                    assertEquals(threads + " " + size, sequential(f, args), mapper.map(f, args));
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void unevenCosts() throws InterruptedException {
+        // Cheap elements make chunks large, expensive ones must still be spread over the workers
+        final Function<Integer, Long> f = i -> {
+            long sum = 0;
+            for (int j = 0; j < (i % 100 == 0 ? 100_000 : 10); j++) {
+                sum += (long) j * i;
+            }
+            return sum;
+        };
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(4)) {
+            final List<Integer> args = range(5_000);
+            assertEquals(sequential(f, args), mapper.map(f, args));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void slowElementsAreSpread() throws InterruptedException {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(4)) {
+            final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+            // Cheap elements make the chunks large before the slow ones are reached
+            final Function<Integer, Integer> f = i -> {
+                if (i >= 1_000) {
+                    workers.add(Thread.currentThread());
+                    sleep(2);
+                }
+                return i;
+            };
+            final long start = System.nanoTime();
+            assertEquals(range(1_100), mapper.map(f, range(1_100)));
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(4, workers.size());
+            assertTrue("took " + millis + " ms", millis < 150);
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void concurrentMaps() throws InterruptedException {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(2)) {
+            final List<Integer> args = range(1_000);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final List<Thread> callers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int shift = t;
+                callers.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 10; i++) {
+                            final Function<Integer, Integer> f = x -> x + shift;
+                            assertEquals(sequential(f, args), mapper.map(f, args));
+                        }
+                    } catch (final Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }));
+            }
+            callers.forEach(Thread::start);
+            for (final Thread caller : callers) {
+                caller.join();
+            }
+            assertNull(failure.get());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void blockedWorkerDoesNotBlockOthers() throws Exception {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(2)) {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletableFuture<List<Integer>> blocked = mapper.mapAsync(i -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                return i;
+            }, range(1));
+            started.await();
+            // Jobs of the other batch are queued to both workers, the free one takes them all
+            for (int i = 0; i < 10; i++) {
+                assertEquals(range(100), mapper.map(Function.identity(), range(100)));
+            }
+            assertFalse(blocked.isDone());
+            release.countDown();
+            assertEquals(range(1), blocked.get());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void queueIsBounded() throws Exception {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1)) {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            mapper.mapAsync(i -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                return i;
+            }, range(1));
+            started.await();
+
+            final AtomicInteger submitted = new AtomicInteger();
+            final List<CompletableFuture<List<Integer>>> futures = new ArrayList<>();
+            final Thread submitter = new Thread(() -> {
+                try {
+                    for (int i = 0; i <= ParallelMapperImpl.MAX_SIZE; i++) {
+                        futures.add(mapper.mapAsync(Function.identity(), range(1)));
+                        submitted.incrementAndGet();
+                    }
+                } catch (final InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            submitter.start();
+            Thread.sleep(300);
+            // The only worker is blocked, so the submitter waits for a free place
+            assertEquals(ParallelMapperImpl.MAX_SIZE, submitted.get());
+            release.countDown();
+            submitter.join();
+            for (final CompletableFuture<List<Integer>> future : futures) {
+                assertEquals(range(1), future.get());
+            }
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void failures() throws InterruptedException {
+        for (final int threads : THREADS) {
+            try (final ParallelMapperImpl mapper = new ParallelMapperImpl(threads)) {
+                final IllegalArgumentException exception = new IllegalArgumentException("5");
+                try {
+                    mapper.map(i -> {
+                        if (i == 5) {
+                            throw exception;
+                        }
+                        return i;
+                    }, range(100));
+                    fail("expected exception");
+                } catch (final IllegalArgumentException e) {
+                    assertSame(exception, e);
+                }
+
+                final AssertionError error = new AssertionError("error");
+                try {
+                    mapper.map(i -> {
+                        throw error;
+                    }, range(10));
+                    fail("expected error");
+                } catch (final AssertionError e) {
+                    assertSame(error, e);
+                }
+
+                // The workers survive the failures
+                assertEquals(range(threads * 10), mapper.map(Function.identity(), range(threads * 10)));
+            }
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void sneakyCheckedException() throws InterruptedException {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1)) {
+            final IOException exception = new IOException("sneaky");
+            try {
+                mapper.map(i -> {
+                    throw sneakyThrow(exception);
+                }, range(3));
+                fail("expected exception");
+            } catch (final IllegalStateException e) {
+                assertSame(exception, e.getCause());
+            }
+            // The only worker is still alive
+            assertEquals(range(10), mapper.map(Function.identity(), range(10)));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void failureStopsBatch() throws InterruptedException {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1)) {
+            final AtomicInteger calls = new AtomicInteger();
+            try {
+                mapper.map(i -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException();
+                }, range(1_000));
+                fail("expected exception");
+            } catch (final IllegalStateException ignored) {
+            }
+            assertEquals(1, calls.get());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void timeoutStopsBatch() throws InterruptedException {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1)) {
+            final AtomicInteger calls = new AtomicInteger();
+            // Cheap elements first, so that the chunks are large when the elements become slow
+            final Function<Integer, Integer> f = i -> {
+                calls.incrementAndGet();
+                if (i >= 2_000) {
+                    sleep(5);
+                }
+                return i;
+            };
+            try {
+                mapper.map(f, range(10_000), 200, TimeUnit.MILLISECONDS);
+                fail("expected timeout");
+            } catch (final TimeoutException ignored) {
+            }
+            final int called = calls.get();
+            assertTrue("slow elements are not reached: " + called, called > 2_000);
+
+            final long start = System.nanoTime();
+            assertEquals(range(10), mapper.map(Function.identity(), range(10)));
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("next map took " + millis + " ms", millis < 50);
+
+            Thread.sleep(100);
+            // At most the element that was running at the timeout is completed
+            assertTrue("elements after timeout: " + (calls.get() - called), calls.get() - called <= 1);
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void cancel() throws InterruptedException {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(2)) {
+            final AtomicInteger calls = new AtomicInteger();
+            final CountDownLatch started = new CountDownLatch(1);
+            final CompletableFuture<List<Integer>> future = mapper.mapAsync(i -> {
+                calls.incrementAndGet();
+                started.countDown();
+                sleep(5);
+                return i;
+            }, range(1_000));
+            started.await();
+            assertTrue(future.cancel(false));
+            final int called = calls.get();
+            Thread.sleep(100);
+            assertTrue("elements after cancel: " + (calls.get() - called), calls.get() - called <= 2);
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void mapAsyncConsumer() throws Exception {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(4)) {
+            for (final int size : SIZES) {
+                final AtomicIntegerArray seen = new AtomicIntegerArray(size);
+                final AtomicInteger wrong = new AtomicInteger();
+                final CompletableFuture<List<Integer>> future = mapper.mapAsync(i -> i * 2, range(size), (value, index) -> {
+                    seen.incrementAndGet(index);
+                    if (value != index * 2) {
+                        wrong.incrementAndGet();
+                    }
+                });
+                assertEquals(sequential(i -> i * 2, range(size)), future.get());
+                assertEquals(0, wrong.get());
+                for (int i = 0; i < size; i++) {
+                    assertEquals("index " + i, 1, seen.get(i));
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void mapAsync() throws Exception {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(2)) {
+            assertEquals(List.of(), mapper.mapAsync(Function.identity(), List.of()).getNow(null));
+
+            // Batches overlap: the second one completes while the first one waits
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletableFuture<List<Integer>> first = mapper.mapAsync(i -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                return i;
+            }, range(1));
+            final CompletableFuture<List<Integer>> second = mapper.mapAsync(i -> i + 1, range(100));
+            assertEquals(range(101).subList(1, 101), second.get());
+            assertFalse(first.isDone());
+            release.countDown();
+            assertEquals(range(1), first.get());
+
+            final IllegalStateException exception = new IllegalStateException();
+            final CompletableFuture<List<Integer>> failed = mapper.mapAsync(i -> {
+                throw exception;
+            }, range(10));
+            try {
+                failed.get();
+                fail("expected exception");
+            } catch (final ExecutionException e) {
+                assertSame(exception, e.getCause());
+            }
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void orTimeout() throws Exception {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1)) {
+            final AtomicInteger calls = new AtomicInteger();
+            final CompletableFuture<List<Integer>> future = mapper.mapAsync(i -> {
+                calls.incrementAndGet();
+                sleep(5);
+                return i;
+            }, range(1_000)).orTimeout(50, TimeUnit.MILLISECONDS);
+            try {
+                future.get();
+                fail("expected timeout");
+            } catch (final ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            final int called = calls.get();
+            Thread.sleep(100);
+            assertTrue("elements after timeout: " + (calls.get() - called), calls.get() - called <= 1);
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void interruptedSubmitterCancelsBatch() throws Exception {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(2)) {
+            final CountDownLatch release = new CountDownLatch(1);
+            // A single free place: the first job of the batch is queued, the submitter waits for the second one
+            block(mapper, 2, release, 1);
+            final AtomicInteger calls = new AtomicInteger();
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final Thread submitter = new Thread(() -> {
+                try {
+                    mapper.mapAsync(i -> calls.incrementAndGet(), range(10));
+                } catch (final Throwable e) {
+                    failure.set(e);
+                }
+            });
+            submitter.start();
+            while (submitter.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            submitter.interrupt();
+            submitter.join();
+            assertTrue("expected interruption, found " + failure.get(), failure.get() instanceof InterruptedException);
+
+            // The queued job of the abandoned batch does nothing
+            release.countDown();
+            assertEquals(range(10), mapper.map(Function.identity(), range(10)));
+            Thread.sleep(50);
+            assertEquals(0, calls.get());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void closeReleasesCallers() throws InterruptedException {
+        final ParallelMapperImpl mapper = new ParallelMapperImpl(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread caller = new Thread(() -> {
+            try {
+                mapper.map(i -> {
+                    started.countDown();
+                    sleep(10_000);
+                    return i;
+                }, range(10));
+            } catch (final Throwable e) {
+                failure.set(e);
+            }
+        });
+        caller.start();
+        started.await();
+        mapper.close();
+        caller.join();
+        assertTrue("expected cancellation, found " + failure.get(), failure.get() instanceof CancellationException);
+
+        try {
+            mapper.map(Function.identity(), range(10));
+            fail("expected cancellation");
+        } catch (final CancellationException ignored) {
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void timeoutWhileQueuesAreFull() throws Exception {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1)) {
+            final CountDownLatch release = new CountDownLatch(1);
+            block(mapper, 1, release, 0);
+            final AtomicInteger calls = new AtomicInteger();
+            final long start = System.nanoTime();
+            try {
+                mapper.map(i -> calls.incrementAndGet(), range(10), 50, TimeUnit.MILLISECONDS);
+                fail("expected timeout");
+            } catch (final TimeoutException ignored) {
+            }
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("timeout took " + millis + " ms", millis < 1_000);
+
+            release.countDown();
+            assertEquals(range(10), mapper.map(Function.identity(), range(10)));
+            assertEquals(0, calls.get());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void closeReleasesSubmitters() throws InterruptedException {
+        final ParallelMapperImpl mapper = new ParallelMapperImpl(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        block(mapper, 1, release, 0);
+        final List<CompletableFuture<List<Integer>>> futures = new ArrayList<>();
+        final List<Thread> submitters = IntStream.range(0, 3).mapToObj(i -> new Thread(() -> {
+            try {
+                final CompletableFuture<List<Integer>> future = mapper.mapAsync(Function.identity(), range(1));
+                synchronized (futures) {
+                    futures.add(future);
+                }
+            } catch (final InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        })).toList();
+        submitters.forEach(Thread::start);
+        for (final Thread submitter : submitters) {
+            while (submitter.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+        }
+        mapper.close();
+        for (final Thread submitter : submitters) {
+            submitter.join();
+        }
+        assertEquals(submitters.size(), futures.size());
+        assertTrue(futures.stream().allMatch(CompletableFuture::isCancelled));
+        assertTrue(mapper.mapAsync(Function.identity(), range(1)).isCancelled());
+    }
+
+    @Test(timeout = 10_000)
+    public void closeTwice() throws InterruptedException {
+        final ParallelMapperImpl mapper = new ParallelMapperImpl(2);
+        assertEquals(range(10), mapper.map(Function.identity(), range(10)));
+        mapper.close();
+        // As try-with-resources does after an explicit close
+        mapper.close();
+        assertTrue(mapper.mapAsync(Function.identity(), range(1)).isCancelled());
+    }
+}
@@ -0,0 +1,178 @@
+package info.kgeorgiy.ja.Podtsepko.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Maps lists by a thread per element, for functions that mostly block.
+ * <p>
+ * Threads are virtual if the runtime supports them (Java 21+), otherwise they are
+ * platform daemon threads. The number of elements that are mapped at the same time,
+ * over all {@link #map} calls, is limited by the concurrency given to the constructor.
+ */
+public class VirtualParallelMapper implements ParallelMapper {
+    private static final ThreadFactory VIRTUAL = virtualThreadFactory();
+    private static final ThreadFactory FACTORY = VIRTUAL != null ? VIRTUAL : task -> {
+        final Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    private final Semaphore permits;
+    // Guards closed, running and the live threads of the calls, so that close() sees every started thread
+    private final Object lock = new Object();
+    private final Set<Thread> running = new HashSet<>();
+    private boolean closed;
+
+    // Thread.ofVirtual().factory() is looked up reflectively to compile with Java 17
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (final NoSuchMethodException | ClassNotFoundException | IllegalAccessException
+                       | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the mapper runs elements on virtual threads.
+     *
+     * @return {@code true} if virtual threads are available
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL != null;
+    }
+
+    /**
+     * Creates mapper with the given concurrency limit.
+     *
+     * @param concurrency maximal number of elements mapped at the same time
+     *
+     * @throws IllegalArgumentException if concurrency less than 1.
+     */
+    public VirtualParallelMapper(final int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency should be at least 1");
+        }
+        permits = new Semaphore(concurrency);
+    }
+
+    // Interrupts the live threads of a map call, except the current one
+    private void interrupt(final Set<Thread> threads) {
+        synchronized (lock) {
+            for (final Thread thread : threads) {
+                if (thread != Thread.currentThread()) {
+                    thread.interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the list by a thread per element.
+     * The first failure of the function interrupts the other threads of the call
+     * and stops starting new ones. If the caller is interrupted, the started threads
+     * are interrupted too.
+     *
+     * @param f    function to apply
+     * @param args elements to map
+     * @return list of the results
+     *
+     * @throws InterruptedException if interrupted or if the mapper is closed
+     */
+    @Override
+    public <T, R> List<R> map(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args) throws InterruptedException {
+        final Object[] values = new Object[args.size()];
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        // Threads of this call that are not finished, at most the concurrency
+        final Set<Thread> live = new HashSet<>();
+        try {
+            for (int i = 0; i < args.size() && failure.get() == null; i++) {
+                permits.acquire();
+                final int index = i;
+                final Thread thread = FACTORY.newThread(() -> {
+                    try {
+                        values[index] = f.apply(args.get(index));
+                    } catch (final Throwable e) {
+                        if (failure.compareAndSet(null, e)) {
+                            interrupt(live);
+                        }
+                    } finally {
+                        synchronized (lock) {
+                            running.remove(Thread.currentThread());
+                            live.remove(Thread.currentThread());
+                            if (live.isEmpty()) {
+                                lock.notifyAll();
+                            }
+                        }
+                        permits.release();
+                    }
+                });
+                synchronized (lock) {
+                    if (closed) {
+                        permits.release();
+                        throw new InterruptedException("Mapper is closed");
+                    }
+                    // Checked under the lock, so that a failure interrupts every started thread
+                    if (failure.get() != null) {
+                        permits.release();
+                        break;
+                    }
+                    running.add(thread);
+                    live.add(thread);
+                    thread.start();
+                }
+            }
+            synchronized (lock) {
+                while (!live.isEmpty()) {
+                    lock.wait();
+                }
+            }
+        } catch (final InterruptedException e) {
+            interrupt(live);
+            throw e;
+        }
+
+        final Throwable e = failure.get();
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        } else if (e instanceof Error error) {
+            throw error;
+        } else if (e != null) {
+            throw new IllegalStateException(e);
+        }
+        @SuppressWarnings("unchecked")
+        final List<R> result = (List<R>) Arrays.asList(values);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        final List<Thread> threads;
+        synchronized (lock) {
+            closed = true;
+            threads = new ArrayList<>(running);
+        }
+        for (final Thread thread : threads) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                System.err.printf("Error: %s%n", e.getLocalizedMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package info.kgeorgiy.ja.Podtsepko.concurrent;
+
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class VirtualParallelMapperTest {
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(VirtualParallelMapperTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    private static List<Integer> range(final int size) {
+        return IntStream.range(0, size).boxed().toList();
+    }
+
+    // Sleeps until interrupted, counting the interrupts
+    private static Function<Integer, Integer> blocking(final CountDownLatch started, final AtomicInteger interrupted) {
+        return blocking(started, interrupted, new CountDownLatch(0));
+    }
+
+    // Sleeps until interrupted, counting the interrupts and then the finished calls
+    private static Function<Integer, Integer> blocking(
+            final CountDownLatch started,
+            final AtomicInteger interrupted,
+            final CountDownLatch finished) {
+        return i -> {
+            started.countDown();
+            try {
+                Thread.sleep(100_000);
+            } catch (final InterruptedException e) {
+                interrupted.incrementAndGet();
+            }
+            finished.countDown();
+            return i;
+        };
+    }
+
+    @Test
+    public void virtualThreads() {
+        assertEquals(Runtime.version().feature() >= 21, VirtualParallelMapper.isVirtual());
+    }
+
+    @Test(timeout = 10_000)
+    public void map() throws InterruptedException {
+        try (final VirtualParallelMapper mapper = new VirtualParallelMapper(3)) {
+            final AtomicInteger active = new AtomicInteger();
+            final AtomicInteger maxActive = new AtomicInteger();
+            final List<Integer> result = mapper.map(i -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                Thread.yield();
+                active.decrementAndGet();
+                return i * 2;
+            }, range(100));
+            assertEquals(range(100).stream().map(i -> i * 2).toList(), result);
+            assertTrue("active " + maxActive.get(), maxActive.get() <= 3);
+            assertEquals(List.of(), mapper.map(Function.identity(), List.of()));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void failureInterruptsSiblings() throws InterruptedException {
+        try (final VirtualParallelMapper mapper = new VirtualParallelMapper(4)) {
+            final CountDownLatch started = new CountDownLatch(3);
+            final AtomicInteger interrupted = new AtomicInteger();
+            final AtomicInteger calls = new AtomicInteger();
+            final Function<Integer, Integer> blocking = blocking(started, interrupted);
+            final IllegalArgumentException exception = new IllegalArgumentException();
+            try {
+                mapper.map(i -> {
+                    calls.incrementAndGet();
+                    if (i == 3) {
+                        try {
+                            started.await();
+                        } catch (final InterruptedException e) {
+                            throw new AssertionError(e);
+                        }
+                        throw exception;
+                    }
+                    return blocking.apply(i);
+                }, range(100));
+                fail("expected exception");
+            } catch (final IllegalArgumentException e) {
+                assertSame(exception, e);
+            }
+            assertEquals(3, interrupted.get());
+            assertTrue("calls " + calls.get(), calls.get() <= 5);
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void callerInterruptionInterruptsThreads() throws InterruptedException {
+        try (final VirtualParallelMapper mapper = new VirtualParallelMapper(2)) {
+            final CountDownLatch started = new CountDownLatch(2);
+            final AtomicInteger interrupted = new AtomicInteger();
+            final CountDownLatch finished = new CountDownLatch(2);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final Thread caller = new Thread(() -> {
+                try {
+                    mapper.map(blocking(started, interrupted, finished), range(10));
+                } catch (final Throwable e) {
+                    failure.set(e);
+                }
+            });
+            caller.start();
+            started.await();
+            caller.interrupt();
+            caller.join();
+            assertTrue("expected interruption, found " + failure.get(), failure.get() instanceof InterruptedException);
+            // Both started threads are interrupted and release their permits
+            finished.await();
+            assertEquals(2, interrupted.get());
+            assertEquals(range(2), mapper.map(Function.identity(), range(2)));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void close() throws InterruptedException {
+        final VirtualParallelMapper mapper = new VirtualParallelMapper(2);
+        final CountDownLatch started = new CountDownLatch(2);
+        final AtomicInteger interrupted = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread caller = new Thread(() -> {
+            try {
+                mapper.map(blocking(started, interrupted), range(10));
+            } catch (final Throwable e) {
+                failure.set(e);
+            }
+        });
+        caller.start();
+        started.await();
+        mapper.close();
+        assertEquals(2, interrupted.get());
+        caller.join();
+        assertTrue("expected interruption, found " + failure.get(), failure.get() instanceof InterruptedException);
+
+        try {
+            mapper.map(Function.identity(), range(1));
+            fail("expected rejection");
+        } catch (final InterruptedException ignored) {
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the least {@code limit} of the offered values in a binary max-heap.
+ * <p>
+ * Equal values are ordered by the order of offering, so the result is the same
+ * as the first {@code limit} values of the stable sort of all offered values.
+ * The heap grows with the number of offered values, so a large limit costs nothing.
+ */
+class BoundedHeap<T> {
+    private final Comparator<? super T> comparator;
+    private final int limit;
+    private Object[] values;
+    private int[] order;
+    private int size;
+    private int offered;
+
+    /**
+     * Creates an empty heap.
+     *
+     * @param limit      maximal number of the kept values
+     * @param expected   expected number of the offered values
+     * @param comparator order of the values
+     */
+    BoundedHeap(final int limit, final int expected, final Comparator<? super T> comparator) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit should be non-negative");
+        }
+        this.comparator = comparator;
+        this.limit = limit;
+        final int capacity = Math.min(limit, Math.max(expected, 0));
+        this.values = new Object[capacity];
+        this.order = new int[capacity];
+    }
+
+    private void grow() {
+        final int capacity = (int) Math.min(limit, Math.max(16, 2L * values.length));
+        values = Arrays.copyOf(values, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(final int left, final int right) {
+        final int result = comparator.compare((T) values[left], (T) values[right]);
+        return result != 0 ? result : Integer.compare(order[left], order[right]);
+    }
+
+    /**
+     * Offers the value, which follows all previously offered values.
+     *
+     * @param value offered value
+     */
+    void offer(final T value) {
+        offer(value, offered++);
+    }
+
+    /**
+     * Offers the value with the given position in the order of offering.
+     * Positions should increase from call to call.
+     *
+     * @param value offered value
+     * @param index position of the value
+     */
+    @SuppressWarnings("unchecked")
+    void offer(final T value, final int index) {
+        if (size < limit) {
+            if (size == values.length) {
+                grow();
+            }
+            values[size] = value;
+            order[size] = index;
+            siftUp(size++);
+        } else if (size > 0 && comparator.compare(value, (T) values[0]) < 0) {
+            // Equal value is offered later than the root, so it is not less
+            values[0] = value;
+            order[0] = index;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Returns number of the kept values.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns position of the greatest kept value. The heap should not be empty.
+     */
+    int greatestIndex() {
+        return order[0];
+    }
+
+    private void siftUp(int child) {
+        while (child > 0) {
+            final int parent = (child - 1) / 2;
+            if (compare(parent, child) >= 0) {
+                return;
+            }
+            swap(parent, child);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int parent) {
+        while (true) {
+            int largest = parent;
+            for (int child = 2 * parent + 1; child <= 2 * parent + 2 && child < size; child++) {
+                if (compare(child, largest) > 0) {
+                    largest = child;
+                }
+            }
+            if (largest == parent) {
+                return;
+            }
+            swap(parent, largest);
+            parent = largest;
+        }
+    }
+
+    private void swap(final int i, final int j) {
+        final Object value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        final int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+    }
+
+    /**
+     * Removes the kept values.
+     *
+     * @return kept values in ascending order
+     */
+    @SuppressWarnings("unchecked")
+    List<T> drain() {
+        final List<T> result = new ArrayList<>(size);
+        while (size > 0) {
+            result.add((T) values[0]);
+            swap(0, --size);
+            values[size] = null;
+            siftDown(0);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,239 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * {@link StudentDB} over students stored by columns, see {@link #getStudents()}.
+ * <p>
+ * Students are copied to primitive columns with dictionary-encoded names, so the
+ * database does not keep the original objects. Queries about the {@link #getStudents()
+ * student list} of the database run as loops over the columns and create {@link Student}
+ * objects only for the returned students. Queries about other collections are answered
+ * as in {@link StudentDB}.
+ */
+public class ColumnarStudentDB extends StudentDB {
+    private final StudentColumns columns;
+    private final List<Student> students;
+
+    public ColumnarStudentDB(Collection<Student> students) {
+        this(new StudentColumns(students));
+    }
+
+    private ColumnarStudentDB(StudentColumns columns) {
+        this.columns = columns;
+        this.students = columns.asList();
+    }
+
+    /**
+     * Loads database from the binary snapshot written by {@link #save(Path)}.
+     * The columns are read with bulk copies, without parsing or creating students.
+     *
+     * @param file snapshot file
+     * @return loaded database
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public static ColumnarStudentDB load(Path file) throws IOException {
+        return new ColumnarStudentDB(StudentSnapshot.read(file));
+    }
+
+    /**
+     * Saves the students to the binary snapshot, replacing the file atomically.
+     *
+     * @param file snapshot file
+     * @throws IOException if an I/O error occurs
+     */
+    public void save(Path file) throws IOException {
+        StudentSnapshot.write(columns, file);
+    }
+
+    /**
+     * Returns the stored students. Elements of the list are created on access.
+     *
+     * @return unmodifiable list of the students
+     */
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    private boolean isColumnar(Collection<Student> students) {
+        return students == this.students;
+    }
+
+    private <T> List<T> project(IntFunction<T> column) {
+        final Object[] values = new Object[columns.size()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = column.apply(row);
+        }
+        @SuppressWarnings("unchecked") final List<T> list = (List<T>) Arrays.asList(values);
+        return Collections.unmodifiableList(list);
+    }
+
+    private int[] rows(IntPredicate filter) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            if (filter.test(row)) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private int[] allRows() {
+        return rows(row -> true);
+    }
+
+    private List<Student> materialize(int[] rows) {
+        final Student[] result = new Student[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            result[i] = columns.student(rows[i]);
+        }
+        return List.of(result);
+    }
+
+    // Same order as COMPARING_BY_NAME: last name and first name descending, then id
+    private int compareByName(int left, int right) {
+        int result = Integer.compare(columns.lastNameCode(right), columns.lastNameCode(left));
+        if (result == 0) {
+            result = Integer.compare(columns.firstNameCode(right), columns.firstNameCode(left));
+        }
+        if (result == 0) {
+            result = Integer.compare(columns.id(left), columns.id(right));
+        }
+        return result;
+    }
+
+    private List<Student> sortedByName(int[] rows) {
+        StudentColumns.sort(rows, this::compareByName);
+        return materialize(rows);
+    }
+
+    @Override
+    public List<String> getFirstNames(List<Student> students) {
+        return isColumnar(students) ? project(columns::firstName) : super.getFirstNames(students);
+    }
+
+    @Override
+    public List<String> getLastNames(List<Student> students) {
+        return isColumnar(students) ? project(columns::lastName) : super.getLastNames(students);
+    }
+
+    @Override
+    public List<GroupName> getGroups(List<Student> students) {
+        return isColumnar(students) ? project(columns::group) : super.getGroups(students);
+    }
+
+    @Override
+    public List<String> getFullNames(List<Student> students) {
+        if (!isColumnar(students)) {
+            return super.getFullNames(students);
+        }
+        return project(row -> String.format("%s %s", columns.firstName(row), columns.lastName(row)));
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(List<Student> students) {
+        if (!isColumnar(students)) {
+            return super.getDistinctFirstNames(students);
+        }
+        final boolean[] present = new boolean[columns.firstNameCount()];
+        for (int row = 0; row < columns.size(); row++) {
+            present[columns.firstNameCode(row)] = true;
+        }
+        final Set<String> names = new TreeSet<>();
+        for (int code = 0; code < present.length; code++) {
+            if (present[code]) {
+                names.add(columns.firstNameOf(code));
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public String getMaxStudentFirstName(List<Student> students) {
+        if (!isColumnar(students)) {
+            return super.getMaxStudentFirstName(students);
+        }
+        int max = -1;
+        for (int row = 0; row < columns.size(); row++) {
+            if (max < 0 || columns.id(row) > columns.id(max)) {
+                max = row;
+            }
+        }
+        return max < 0 ? "" : columns.firstName(max);
+    }
+
+    @Override
+    public List<Student> sortStudentsById(Collection<Student> students) {
+        if (!isColumnar(students)) {
+            return super.sortStudentsById(students);
+        }
+        final int[] rows = allRows();
+        StudentColumns.sort(rows, (left, right) -> Integer.compare(columns.id(left), columns.id(right)));
+        return materialize(rows);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students) {
+        return isColumnar(students) ? sortedByName(allRows()) : super.sortStudentsByName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        if (!isColumnar(students)) {
+            return super.findStudentsByFirstName(students, name);
+        }
+        final int code = columns.firstNameCode(name);
+        return code < 0 ? List.of() : sortedByName(rows(row -> columns.firstNameCode(row) == code));
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        if (!isColumnar(students)) {
+            return super.findStudentsByLastName(students, name);
+        }
+        final int code = columns.lastNameCode(name);
+        return code < 0 ? List.of() : sortedByName(rows(row -> columns.lastNameCode(row) == code));
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
+        if (!isColumnar(students)) {
+            return super.findStudentsByGroup(students, group);
+        }
+        if (group == null) {
+            return List.of();
+        }
+        final int ordinal = group.ordinal();
+        return sortedByName(rows(row -> columns.groupOrdinal(row) == ordinal));
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
+        if (!isColumnar(students)) {
+            return super.findStudentNamesByGroup(students, group);
+        }
+        if (group == null) {
+            return Map.of();
+        }
+        final int ordinal = group.ordinal();
+        final Map<String, String> names = new HashMap<>();
+        for (int row = 0; row < columns.size(); row++) {
+            if (columns.groupOrdinal(row) == ordinal) {
+                names.merge(columns.lastName(row), columns.firstName(row), BinaryOperator.minBy(Comparator.naturalOrder()));
+            }
+        }
+        return names;
+    }
+}
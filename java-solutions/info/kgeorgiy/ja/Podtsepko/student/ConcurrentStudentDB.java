@@ -0,0 +1,170 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+
+/**
+ * Mutable thread-safe {@link StudentDB} with incrementally maintained groups.
+ * <p>
+ * Every group is an immutable snapshot of its students sorted by name and of the
+ * {@link #findStudentNamesByGroup(GroupName) names} of the group. Writes replace the
+ * snapshot of the affected group only, reads return the current snapshot without locking.
+ */
+public class ConcurrentStudentDB extends StudentDB {
+    private record Group(List<Student> students, Map<String, String> names) {
+        private static final Group EMPTY = new Group(List.of(), Map.of());
+        private static final BinaryOperator<String> MIN_NAME = BinaryOperator.minBy(Comparator.naturalOrder());
+
+        // Index after the students that are equal to the given one by name
+        private int upperBound(final Student student) {
+            int low = 0;
+            int high = students.size();
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (COMPARING_BY_NAME.compare(students.get(middle), student) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // Sorts the students once, instead of copying the group for every student
+        static Group of(final List<Student> students) {
+            students.sort(COMPARING_BY_NAME);
+            final Map<String, String> names = new HashMap<>();
+            for (final Student student : students) {
+                names.merge(student.getLastName(), student.getFirstName(), MIN_NAME);
+            }
+            return new Group(Collections.unmodifiableList(students), Collections.unmodifiableMap(names));
+        }
+
+        Group add(final Student student) {
+            final List<Student> students = new ArrayList<>(this.students.size() + 1);
+            final int index = upperBound(student);
+            students.addAll(this.students.subList(0, index));
+            students.add(student);
+            students.addAll(this.students.subList(index, this.students.size()));
+
+            final Map<String, String> names = new HashMap<>(this.names);
+            names.merge(student.getLastName(), student.getFirstName(), MIN_NAME);
+            return new Group(Collections.unmodifiableList(students), Collections.unmodifiableMap(names));
+        }
+
+        Group remove(final int index) {
+            final Student student = this.students.get(index);
+            final List<Student> students = new ArrayList<>(this.students);
+            students.remove(index);
+            if (students.isEmpty()) {
+                return null;
+            }
+
+            Map<String, String> names = this.names;
+            if (student.getFirstName().equals(names.get(student.getLastName()))) {
+                final Map<String, String> copy = new HashMap<>(names);
+                copy.remove(student.getLastName());
+                for (final Student other : students) {
+                    if (other.getLastName().equals(student.getLastName())) {
+                        copy.merge(other.getLastName(), other.getFirstName(), MIN_NAME);
+                    }
+                }
+                names = Collections.unmodifiableMap(copy);
+            }
+            return new Group(Collections.unmodifiableList(students), names);
+        }
+
+        // Index of the student equal to the given one, -1 if there is no such student
+        int indexOf(final Student student) {
+            for (int index = upperBound(student) - 1; index >= 0; index--) {
+                final Student other = students.get(index);
+                if (COMPARING_BY_NAME.compare(other, student) != 0) {
+                    break;
+                }
+                if (other.equals(student)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final Map<GroupName, Group> groups = new ConcurrentHashMap<>();
+
+    public ConcurrentStudentDB() {
+    }
+
+    public ConcurrentStudentDB(Collection<Student> students) {
+        final Map<GroupName, List<Student>> byGroup = new EnumMap<>(GroupName.class);
+        for (final Student student : students) {
+            byGroup.computeIfAbsent(student.getGroup(), group -> new ArrayList<>()).add(student);
+        }
+        byGroup.forEach((name, group) -> groups.put(name, Group.of(group)));
+    }
+
+    /**
+     * Adds the student.
+     *
+     * @param student student to add
+     */
+    public void add(Student student) {
+        groups.compute(student.getGroup(), (name, group) -> (group == null ? Group.EMPTY : group).add(student));
+    }
+
+    /**
+     * Removes a student that is equal to the given one.
+     *
+     * @param student student to remove
+     * @return {@code true} if the student was removed
+     */
+    public boolean remove(Student student) {
+        final boolean[] removed = new boolean[1];
+        groups.computeIfPresent(student.getGroup(), (name, group) -> {
+            final int index = group.indexOf(student);
+            if (index < 0) {
+                return group;
+            }
+            removed[0] = true;
+            return group.remove(index);
+        });
+        return removed[0];
+    }
+
+    /**
+     * Returns current students of the group sorted by name.
+     *
+     * @param group name of the group
+     * @return unmodifiable snapshot of the students
+     */
+    public List<Student> findStudentsByGroup(GroupName group) {
+        return groups.getOrDefault(group, Group.EMPTY).students();
+    }
+
+    /**
+     * Returns current names of the students of the group as in
+     * {@link #findStudentNamesByGroup(Collection, GroupName)}.
+     *
+     * @param group name of the group
+     * @return unmodifiable snapshot of the names
+     */
+    public Map<String, String> findStudentNamesByGroup(GroupName group) {
+        return groups.getOrDefault(group, Group.EMPTY).names();
+    }
+
+    /**
+     * Returns all current students, grouped by groups.
+     *
+     * @return new list of the students
+     */
+    public List<Student> getStudents() {
+        final List<Student> students = new ArrayList<>();
+        for (final Group group : groups.values()) {
+            students.addAll(group.students());
+        }
+        return students;
+    }
+}
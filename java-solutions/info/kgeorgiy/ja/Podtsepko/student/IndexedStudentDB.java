@@ -0,0 +1,105 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link StudentDB} with hash indexes over a fixed collection of students.
+ * <p>
+ * Students are copied and sorted by name once, when the database is created, and grouped
+ * by first name, last name and group. Queries about the {@link #getStudents() copy} are
+ * answered from the indexes, queries about other collections, including the collection
+ * the database was created from, are answered as in {@link StudentDB}.
+ */
+public class IndexedStudentDB extends StudentDB {
+    private final List<Student> students;
+    private final List<Student> byName;
+    private final Map<String, List<Student>> byFirstName;
+    private final Map<String, List<Student>> byLastName;
+    private final Map<GroupName, List<Student>> byGroup;
+
+    public IndexedStudentDB(Collection<Student> students) {
+        this.students = List.copyOf(students);
+        this.byName = this.students.stream().sorted(COMPARING_BY_NAME).toList();
+        this.byFirstName = index(byName, Student::getFirstName);
+        this.byLastName = index(byName, Student::getLastName);
+        this.byGroup = index(byName, Student::getGroup);
+    }
+
+    private static <T> Map<T, List<Student>> index(List<Student> students, Function<Student, T> key) {
+        // Grouping keeps the order of the students, so every list is sorted by name
+        return students.stream().collect(Collectors.groupingBy(
+                key,
+                HashMap::new,
+                Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)
+        ));
+    }
+
+    private boolean isIndexed(Collection<Student> students) {
+        return students == this.students;
+    }
+
+    /**
+     * Returns the indexed students.
+     *
+     * @return unmodifiable copy of the students this database was created from
+     */
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students) {
+        return isIndexed(students) ? byName : super.sortStudentsByName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        return isIndexed(students) ? byFirstName.getOrDefault(name, List.of()) : super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        return isIndexed(students) ? byLastName.getOrDefault(name, List.of()) : super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
+        return isIndexed(students) ? byGroup.getOrDefault(group, List.of()) : super.findStudentsByGroup(students, group);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
+        if (!isIndexed(students)) {
+            return super.findStudentNamesByGroup(students, group);
+        }
+        return byGroup.getOrDefault(group, List.of())
+                .stream()
+                .collect(Collectors.toMap(
+                        Student::getLastName,
+                        Student::getFirstName,
+                        BinaryOperator.minBy(Comparator.naturalOrder())
+                ));
+    }
+
+    public List<Student> findStudentsByFirstName(String name) {
+        return findStudentsByFirstName(students, name);
+    }
+
+    public List<Student> findStudentsByLastName(String name) {
+        return findStudentsByLastName(students, name);
+    }
+
+    public List<Student> findStudentsByGroup(GroupName group) {
+        return findStudentsByGroup(students, group);
+    }
+
+    public Map<String, String> findStudentNamesByGroup(GroupName group) {
+        return findStudentNamesByGroup(students, group);
+    }
+}
@@ -0,0 +1,89 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over values in ascending order, selecting them in pages of growing size.
+ * <p>
+ * Every page is selected by a pass over the collection with a {@link BoundedHeap},
+ * and page sizes double from {@value #FIRST_PAGE}. So taking first {@code k} of
+ * {@code n} values costs {@code O(k)} memory and {@code O(log k)} passes of
+ * {@code O(n log k)} time. Equal values are returned in the order of the collection,
+ * as by a stable sort. The collection should not be modified during the iteration.
+ */
+class PagingIterator<T> implements Iterator<T> {
+    private static final int FIRST_PAGE = 16;
+
+    private final Collection<? extends T> values;
+    private final Comparator<? super T> comparator;
+    private int remaining;
+    private int pageSize = FIRST_PAGE;
+    private List<T> page = List.of();
+    private int position;
+    // Last value of the current page and its index in the collection, -1 before the first page
+    private T last;
+    private int lastIndex = -1;
+
+    PagingIterator(final Collection<? extends T> values, final Comparator<? super T> comparator) {
+        this.values = values;
+        this.comparator = comparator;
+        this.remaining = values.size();
+    }
+
+    private boolean isAfterLast(final T value, final int index) {
+        if (lastIndex < 0) {
+            return true;
+        }
+        final int result = comparator.compare(value, last);
+        return result > 0 || result == 0 && index > lastIndex;
+    }
+
+    private void nextPage() {
+        page = List.of();
+        final BoundedHeap<T> heap = new BoundedHeap<>(pageSize, remaining, comparator);
+        int index = 0;
+        for (final T value : values) {
+            if (isAfterLast(value, index)) {
+                heap.offer(value, index);
+            }
+            index++;
+        }
+        if (heap.size() == 0) {
+            throw new ConcurrentModificationException();
+        }
+        lastIndex = heap.greatestIndex();
+        page = heap.drain();
+        last = page.get(page.size() - 1);
+        position = 0;
+        pageSize = (int) Math.min(Integer.MAX_VALUE, 2L * pageSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (position == page.size()) {
+            nextPage();
+        }
+        remaining--;
+        return page.get(position++);
+    }
+
+    /**
+     * Returns number of the remaining values.
+     */
+    int remaining() {
+        return remaining;
+    }
+}
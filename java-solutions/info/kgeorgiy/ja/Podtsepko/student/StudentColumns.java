@@ -0,0 +1,206 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Students stored by columns: ids, dictionary codes of the first and last names
+ * and ordinals of the groups.
+ * <p>
+ * Dictionaries are sorted, so codes compare as the names they encode.
+ * {@link Student} objects are created only when a row is requested.
+ */
+class StudentColumns {
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    /**
+     * Comparator of the rows.
+     */
+    interface RowComparator {
+        int compare(int left, int right);
+    }
+
+    private final int[] ids;
+    private final int[] firstNames;
+    private final int[] lastNames;
+    private final byte[] groups;
+    private final String[] firstNameDictionary;
+    private final String[] lastNameDictionary;
+
+    StudentColumns(final Collection<Student> students) {
+        if (GROUPS.length > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many groups to store ordinals in bytes");
+        }
+        final int size = students.size();
+        ids = new int[size];
+        firstNames = new int[size];
+        lastNames = new int[size];
+        groups = new byte[size];
+        firstNameDictionary = dictionary(students, Student::getFirstName);
+        lastNameDictionary = dictionary(students, Student::getLastName);
+
+        final Map<String, Integer> firstNameCodes = codes(firstNameDictionary);
+        final Map<String, Integer> lastNameCodes = codes(lastNameDictionary);
+        int row = 0;
+        for (final Student student : students) {
+            ids[row] = student.getId();
+            firstNames[row] = firstNameCodes.get(student.getFirstName());
+            lastNames[row] = lastNameCodes.get(student.getLastName());
+            groups[row] = (byte) student.getGroup().ordinal();
+            row++;
+        }
+    }
+
+    StudentColumns(
+            final int[] ids,
+            final int[] firstNames,
+            final int[] lastNames,
+            final byte[] groups,
+            final String[] firstNameDictionary,
+            final String[] lastNameDictionary
+    ) {
+        this.ids = ids;
+        this.firstNames = firstNames;
+        this.lastNames = lastNames;
+        this.groups = groups;
+        this.firstNameDictionary = firstNameDictionary;
+        this.lastNameDictionary = lastNameDictionary;
+    }
+
+    private static String[] dictionary(
+            final Collection<Student> students,
+            final Function<Student, String> getter
+    ) {
+        return students.stream().map(getter).distinct().sorted().toArray(String[]::new);
+    }
+
+    private static Map<String, Integer> codes(final String[] dictionary) {
+        final Map<String, Integer> codes = new HashMap<>(dictionary.length * 2);
+        for (int code = 0; code < dictionary.length; code++) {
+            codes.put(dictionary[code], code);
+        }
+        return codes;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int id(final int row) {
+        return ids[row];
+    }
+
+    int firstNameCode(final int row) {
+        return firstNames[row];
+    }
+
+    int lastNameCode(final int row) {
+        return lastNames[row];
+    }
+
+    int groupOrdinal(final int row) {
+        return groups[row];
+    }
+
+    String firstName(final int row) {
+        return firstNameDictionary[firstNames[row]];
+    }
+
+    String lastName(final int row) {
+        return lastNameDictionary[lastNames[row]];
+    }
+
+    GroupName group(final int row) {
+        return GROUPS[groups[row]];
+    }
+
+    String firstNameOf(final int code) {
+        return firstNameDictionary[code];
+    }
+
+    int firstNameCount() {
+        return firstNameDictionary.length;
+    }
+
+    String lastNameOf(final int code) {
+        return lastNameDictionary[code];
+    }
+
+    int lastNameCount() {
+        return lastNameDictionary.length;
+    }
+
+    /**
+     * Returns code of the first name, or a negative value if there is no such name.
+     */
+    int firstNameCode(final String name) {
+        return name == null ? -1 : Arrays.binarySearch(firstNameDictionary, name);
+    }
+
+    /**
+     * Returns code of the last name, or a negative value if there is no such name.
+     */
+    int lastNameCode(final String name) {
+        return name == null ? -1 : Arrays.binarySearch(lastNameDictionary, name);
+    }
+
+    Student student(final int row) {
+        return new Student(ids[row], firstName(row), lastName(row), group(row));
+    }
+
+    /**
+     * Returns list view of the rows that creates students on access.
+     */
+    List<Student> asList() {
+        return new Rows();
+    }
+
+    /**
+     * Sorts the rows. The sort is stable.
+     *
+     * @param rows       rows to sort
+     * @param comparator comparator of the rows
+     */
+    static void sort(final int[] rows, final RowComparator comparator) {
+        mergeSort(rows, rows.clone(), 0, rows.length, comparator);
+    }
+
+    // Sorts rows[from, to) using buffer, which has the same contents
+    private static void mergeSort(
+            final int[] rows,
+            final int[] buffer,
+            final int from,
+            final int to,
+            final RowComparator comparator
+    ) {
+        if (to - from < 2) {
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        mergeSort(buffer, rows, from, middle, comparator);
+        mergeSort(buffer, rows, middle, to, comparator);
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right == to || left < middle && comparator.compare(buffer[left], buffer[right]) <= 0) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    private class Rows extends AbstractList<Student> implements RandomAccess {
+        @Override
+        public Student get(final int index) {
+            Objects.checkIndex(index, size());
+            return student(index);
+        }
+
+        @Override
+        public int size() {
+            return StudentColumns.this.size();
+        }
+    }
+}
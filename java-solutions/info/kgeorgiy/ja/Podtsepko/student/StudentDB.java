@@ -5,24 +5,85 @@ import info.kgeorgiy.java.advanced.student.Student;
 import info.kgeorgiy.java.advanced.student.StudentQuery;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Queries over collections of students.
+ * <p>
+ * Collections of at least {@code parallelThreshold} students are processed with parallel
+ * streams, in the given {@link ForkJoinPool} or in the common pool. Parallel queries
+ * return the same results in the same order as sequential ones.
+ */
 public class StudentDB implements StudentQuery {
-    private static final Comparator<? super Student> COMPARING_BY_NAME = Comparator
+    static final Comparator<? super Student> COMPARING_BY_NAME = Comparator
             .comparing(Student::getLastName)
             .thenComparing(Student::getFirstName)
             .reversed()
             .thenComparing(Student::getId);
+    private static final Comparator<Student> COMPARING_BY_ID = Comparator.comparingInt(Student::getId);
+
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates database that processes all collections sequentially.
+     */
+    public StudentDB() {
+        this(Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates database that processes large collections in the common pool.
+     *
+     * @param parallelThreshold minimal size of a collection that is processed in parallel
+     */
+    public StudentDB(int parallelThreshold) {
+        this(parallelThreshold, null);
+    }
+
+    /**
+     * Creates database that processes large collections in the given pool.
+     *
+     * @param parallelThreshold minimal size of a collection that is processed in parallel
+     * @param pool              pool for parallel queries, {@code null} for the common pool
+     */
+    public StudentDB(int parallelThreshold, ForkJoinPool pool) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold should be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+        this.pool = pool;
+    }
+
+    private boolean isParallel(Collection<?> values) {
+        return values.size() >= parallelThreshold;
+    }
+
+    private <T> Stream<T> stream(Collection<T> values) {
+        return isParallel(values) ? values.parallelStream() : values.stream();
+    }
+
+    // Terminal operations of parallel streams run in the pool they are called from
+    private <R> R execute(Collection<?> values, Supplier<R> query) {
+        if (pool == null || !isParallel(values)) {
+            return query.get();
+        }
+        return pool.submit(query::get).join();
+    }
 
     private <T> Stream<T> getStudentsPropertiesStream(List<Student> students, Function<Student, T> mapper) {
-        return students.stream().map(mapper);
+        return stream(students).map(mapper);
     }
 
     private <T> List<T> getStudentsPropertiesList(List<Student> students, Function<Student, T> mapper) {
-        return getStudentsPropertiesStream(students, mapper).toList();
+        return execute(students, () -> getStudentsPropertiesStream(students, mapper).toList());
     }
 
     private Stream<String> getFirstNamesStream(List<Student> students) {
@@ -31,7 +92,7 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public List<String> getFirstNames(List<Student> students) {
-        return getFirstNamesStream(students).toList();
+        return getStudentsPropertiesList(students, Student::getFirstName);
     }
 
     @Override
@@ -55,20 +116,19 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public Set<String> getDistinctFirstNames(List<Student> students) {
-        return getFirstNamesStream(students).collect(Collectors.toCollection(TreeSet::new));
+        return execute(students, () -> getFirstNamesStream(students).collect(Collectors.toCollection(TreeSet::new)));
     }
 
     @Override
     public String getMaxStudentFirstName(List<Student> students) {
-        return students
-                .stream()
+        return execute(students, () -> stream(students)
                 .max(Comparator.comparingInt(Student::getId))
                 .map(Student::getFirstName)
-                .orElse("");
+                .orElse(""));
     }
 
     private Stream<Student> getOrderedBy(Collection<Student> students, Comparator<? super Student> comparator) {
-        return students.stream().sorted(comparator);
+        return stream(students).sorted(comparator);
     }
 
     private Stream<Student> getOrderedByName(Collection<Student> students) {
@@ -77,20 +137,114 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public List<Student> sortStudentsById(Collection<Student> students) {
-        return getOrderedBy(students, Comparator.comparing(Student::getId)).toList();
+        return execute(students, () -> getOrderedBy(students, COMPARING_BY_ID).toList());
     }
 
     @Override
     public List<Student> sortStudentsByName(Collection<Student> students) {
-        return getOrderedByName(students).toList();
+        return execute(students, () -> getOrderedByName(students).toList());
+    }
+
+    private static List<Student> getFirst(
+            Collection<Student> students,
+            Comparator<? super Student> comparator,
+            Predicate<Student> filter,
+            int limit
+    ) {
+        final BoundedHeap<Student> heap = new BoundedHeap<>(limit, students.size(), comparator);
+        for (final Student student : students) {
+            if (filter.test(student)) {
+                heap.offer(student);
+            }
+        }
+        return Collections.unmodifiableList(heap.drain());
+    }
+
+    /**
+     * Returns first students in the order of {@link #sortStudentsByName(Collection)}
+     * in {@code O(n log limit)} time and {@code O(min(n, limit))} memory.
+     *
+     * @param students students to sort
+     * @param limit    maximal number of the students to return
+     * @return first {@code limit} students sorted by name
+     */
+    public List<Student> findFirstStudentsByName(Collection<Student> students, int limit) {
+        return getFirst(students, COMPARING_BY_NAME, student -> true, limit);
+    }
+
+    /**
+     * Returns first students in the order of {@link #sortStudentsById(Collection)}
+     * in {@code O(n log limit)} time and {@code O(min(n, limit))} memory.
+     *
+     * @param students students to sort
+     * @param limit    maximal number of the students to return
+     * @return first {@code limit} students sorted by id
+     */
+    public List<Student> findFirstStudentsById(Collection<Student> students, int limit) {
+        return getFirst(students, COMPARING_BY_ID, student -> true, limit);
+    }
+
+    /**
+     * Returns the page of students sorted by name that follows the cursor.
+     *
+     * @param students students to sort
+     * @param cursor   last student of the previous page
+     * @param limit    size of the page
+     * @return first {@code limit} students sorted by name that are greater than the cursor
+     */
+    public List<Student> findStudentsByNameAfter(Collection<Student> students, Student cursor, int limit) {
+        return getFirst(students, COMPARING_BY_NAME, student -> COMPARING_BY_NAME.compare(student, cursor) > 0, limit);
+    }
+
+    /**
+     * Returns the page of students sorted by id that follows the cursor.
+     *
+     * @param students students to sort
+     * @param cursor   id of the last student of the previous page
+     * @param limit    size of the page
+     * @return first {@code limit} students sorted by id with ids greater than the cursor
+     */
+    public List<Student> findStudentsByIdAfter(Collection<Student> students, int cursor, int limit) {
+        return getFirst(students, COMPARING_BY_ID, student -> student.getId() > cursor, limit);
+    }
+
+    private static Stream<Student> getLazilyOrderedBy(Collection<Student> students, Comparator<? super Student> comparator) {
+        return StreamSupport.stream(() -> {
+            final PagingIterator<Student> iterator = new PagingIterator<>(students, comparator);
+            return Spliterators.spliterator(iterator, iterator.remaining(), Spliterator.ORDERED);
+        }, Spliterator.ORDERED | Spliterator.SIZED, false);
+    }
+
+    /**
+     * Returns students in the order of {@link #sortStudentsByName(Collection)} without sorting
+     * all of them: taking first {@code k} students costs {@code O(k)} memory and
+     * {@code O(n log^2 k)} time. The collection should not be modified while the stream is used.
+     *
+     * @param students students to sort
+     * @return lazy stream of students sorted by name
+     */
+    public Stream<Student> streamStudentsByName(Collection<Student> students) {
+        return getLazilyOrderedBy(students, COMPARING_BY_NAME);
+    }
+
+    /**
+     * Returns students in the order of {@link #sortStudentsById(Collection)} without sorting
+     * all of them: taking first {@code k} students costs {@code O(k)} memory and
+     * {@code O(n log^2 k)} time. The collection should not be modified while the stream is used.
+     *
+     * @param students students to sort
+     * @return lazy stream of students sorted by id
+     */
+    public Stream<Student> streamStudentsById(Collection<Student> students) {
+        return getLazilyOrderedBy(students, COMPARING_BY_ID);
     }
 
     public <T> Stream<Student> getFilteredStream(Collection<Student> students, Function<Student, T> getter, T value) {
-        return getOrderedByName(students.stream().filter(student -> Objects.equals(getter.apply(student), value)).toList());
+        return getOrderedByName(stream(students).filter(student -> Objects.equals(getter.apply(student), value)).toList());
     }
 
     public <T> List<Student> getFilteredList(Collection<Student> students, Function<Student, T> getter, T value) {
-        return getFilteredStream(students, getter, value).toList();
+        return execute(students, () -> getFilteredStream(students, getter, value).toList());
     }
 
     @Override
@@ -110,11 +264,11 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
-        return getFilteredStream(students, Student::getGroup, group)
+        return execute(students, () -> getFilteredStream(students, Student::getGroup, group)
                 .collect(Collectors.toMap(
                         Student::getLastName,
                         Student::getFirstName,
                         BinaryOperator.minBy(Comparator.naturalOrder())
-                ));
+                )));
     }
 }
@@ -0,0 +1,332 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class StudentDBTest {
+    private static final String[] FIRST_NAMES = {"Igor", "Aleksey", "Maria", "Anna", "Ivan", "Олег"};
+    private static final String[] LAST_NAMES = {"Ivanov", "Petrov", "Sidorova", "Podtsepko", "Smith"};
+    private static final List<String> ABSENT = Arrays.asList("Nobody", "", null);
+    private static final List<Integer> SIZES = List.of(0, 1, 2, 10, 100, 1000);
+
+    // Behaviour of the original sequential implementation
+    private static final StudentDB REFERENCE = new StudentDB();
+
+    private final Random random = new Random(2350872340598234L);
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(StudentDBTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    private static void assertThrows(final Class<? extends Throwable> type, final Runnable action) {
+        try {
+            action.run();
+        } catch (final Throwable e) {
+            assertTrue("expected " + type.getSimpleName() + ", found " + e, type.isInstance(e));
+            return;
+        }
+        fail("expected " + type.getSimpleName());
+    }
+
+    private <T> T randomOf(final T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Students with repeated names and ids, in random order
+    List<Student> randomStudents(final int size) {
+        final List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student(
+                    random.nextInt(Math.max(1, size)),
+                    randomOf(FIRST_NAMES),
+                    randomOf(LAST_NAMES),
+                    randomOf(GroupName.values())
+            ));
+        }
+        return students;
+    }
+
+    private static List<String> names(final String[] names) {
+        final List<String> result = new ArrayList<>(Arrays.asList(names));
+        result.addAll(ABSENT);
+        return result;
+    }
+
+    private static List<GroupName> groups() {
+        final List<GroupName> groups = new ArrayList<>(Arrays.asList(GroupName.values()));
+        groups.add(null);
+        return groups;
+    }
+
+    /**
+     * Checks that the database answers queries about {@code view} as the original
+     * implementation answers them about {@code students}.
+     */
+    static void checkQueries(final String context, final StudentDB db, final List<Student> students, final List<Student> view) {
+        assertEquals(context, students, new ArrayList<>(view));
+        assertEquals(context, REFERENCE.getFirstNames(students), db.getFirstNames(view));
+        assertEquals(context, REFERENCE.getLastNames(students), db.getLastNames(view));
+        assertEquals(context, REFERENCE.getGroups(students), db.getGroups(view));
+        assertEquals(context, REFERENCE.getFullNames(students), db.getFullNames(view));
+        assertEquals(context, REFERENCE.getDistinctFirstNames(students), db.getDistinctFirstNames(view));
+        assertEquals(context, REFERENCE.getMaxStudentFirstName(students), db.getMaxStudentFirstName(view));
+        assertEquals(context, REFERENCE.sortStudentsById(students), db.sortStudentsById(view));
+        assertEquals(context, REFERENCE.sortStudentsByName(students), db.sortStudentsByName(view));
+        for (final String name : names(FIRST_NAMES)) {
+            assertEquals(context + ", " + name, REFERENCE.findStudentsByFirstName(students, name), db.findStudentsByFirstName(view, name));
+        }
+        for (final String name : names(LAST_NAMES)) {
+            assertEquals(context + ", " + name, REFERENCE.findStudentsByLastName(students, name), db.findStudentsByLastName(view, name));
+        }
+        for (final GroupName group : groups()) {
+            assertEquals(context + ", " + group, REFERENCE.findStudentsByGroup(students, group), db.findStudentsByGroup(view, group));
+            assertEquals(context + ", " + group, REFERENCE.findStudentNamesByGroup(students, group), db.findStudentNamesByGroup(view, group));
+        }
+    }
+
+    @Test
+    public void reference() {
+        final Student igor = new Student(2, "Igor", "Podtsepko", GroupName.M3235);
+        final Student anna = new Student(1, "Anna", "Petrova", GroupName.M3235);
+        final Student ivan = new Student(3, "Ivan", "Petrova", GroupName.M3234);
+        final List<Student> students = List.of(igor, anna, ivan);
+        assertEquals(List.of("Igor Podtsepko", "Anna Petrova", "Ivan Petrova"), REFERENCE.getFullNames(students));
+        assertEquals("Ivan", REFERENCE.getMaxStudentFirstName(students));
+        assertEquals(List.of(anna, igor, ivan), REFERENCE.sortStudentsById(students));
+        // Names are sorted in descending order, as in the original implementation
+        assertEquals(List.of(igor, ivan, anna), REFERENCE.sortStudentsByName(students));
+        assertEquals(List.of(ivan, anna), REFERENCE.findStudentsByLastName(students, "Petrova"));
+        assertEquals(Map.of("Podtsepko", "Igor", "Petrova", "Anna"), REFERENCE.findStudentNamesByGroup(students, GroupName.M3235));
+        assertEquals(List.of(), REFERENCE.findStudentsByFirstName(students, null));
+        assertEquals("", REFERENCE.getMaxStudentFirstName(List.of()));
+    }
+
+    @Test
+    public void columnar() {
+        for (final int size : SIZES) {
+            final List<Student> students = randomStudents(size);
+            final ColumnarStudentDB db = new ColumnarStudentDB(students);
+            checkQueries("columnar " + size, db, students, db.getStudents());
+            checkQueries("columnar fallback " + size, db, students, students);
+        }
+    }
+
+    @Test
+    public void parallel() {
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            final Map<String, StudentDB> databases = new LinkedHashMap<>();
+            databases.put("parallel", new StudentDB(1));
+            databases.put("parallel in pool", new StudentDB(1, pool));
+            databases.put("threshold 50", new StudentDB(50, pool));
+            for (final int size : SIZES) {
+                final List<Student> students = randomStudents(size);
+                databases.forEach((name, db) -> checkQueries(name + " " + size, db, students, students));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new StudentDB(0));
+        assertThrows(IllegalArgumentException.class, () -> new StudentDB(-1, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void indexed() {
+        for (final int size : SIZES) {
+            final List<Student> students = new ArrayList<>(randomStudents(size));
+            final IndexedStudentDB db = new IndexedStudentDB(students);
+            assertEquals(students, db.getStudents());
+            checkQueries("indexed " + size, db, students, db.getStudents());
+            checkQueries("indexed other " + size, db, students, students);
+            for (final String name : names(FIRST_NAMES)) {
+                assertEquals(name, REFERENCE.findStudentsByFirstName(students, name), db.findStudentsByFirstName(name));
+            }
+            for (final String name : names(LAST_NAMES)) {
+                assertEquals(name, REFERENCE.findStudentsByLastName(students, name), db.findStudentsByLastName(name));
+            }
+            for (final GroupName group : groups()) {
+                assertEquals("" + group, REFERENCE.findStudentsByGroup(students, group), db.findStudentsByGroup(group));
+                assertEquals("" + group, REFERENCE.findStudentNamesByGroup(students, group), db.findStudentNamesByGroup(group));
+            }
+            // Changes of the original collection do not affect the indexes
+            if (size > 0) {
+                final List<Student> original = List.copyOf(students);
+                students.set(0, new Student(-1, "Changed", "Changed", GroupName.M3239));
+                checkQueries("indexed changed " + size, db, students, students);
+                checkQueries("indexed copy " + size, db, original, db.getStudents());
+                assertThrows(UnsupportedOperationException.class, () -> db.getStudents().clear());
+            }
+        }
+    }
+
+    @Test
+    public void firstStudents() {
+        for (final int size : SIZES) {
+            final List<Student> students = randomStudents(size);
+            final List<Student> byName = REFERENCE.sortStudentsByName(students);
+            final List<Student> byId = REFERENCE.sortStudentsById(students);
+            for (final int limit : List.of(0, 1, 3, size / 2, size, size + 1, Integer.MAX_VALUE)) {
+                final String context = "size " + size + ", limit " + limit;
+                final int expected = Math.min(size, limit);
+                assertEquals(context, byName.subList(0, expected), REFERENCE.findFirstStudentsByName(students, limit));
+                assertEquals(context, byId.subList(0, expected), REFERENCE.findFirstStudentsById(students, limit));
+                assertEquals(context, byName.subList(0, expected), REFERENCE.streamStudentsByName(students).limit(limit).toList());
+                assertEquals(context, byId.subList(0, expected), REFERENCE.streamStudentsById(students).limit(limit).toList());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> REFERENCE.findFirstStudentsByName(List.of(), -1));
+    }
+
+    private static List<Student> page(final List<Student> sorted, final Predicate<Student> after, final int limit) {
+        final List<Student> page = sorted.stream().filter(after).toList();
+        return page.subList(0, Math.min(page.size(), limit));
+    }
+
+    @Test
+    public void pages() {
+        for (final int size : SIZES) {
+            final List<Student> students = randomStudents(size);
+            final List<Student> byName = REFERENCE.sortStudentsByName(students);
+            final List<Student> byId = REFERENCE.sortStudentsById(students);
+            for (final int limit : List.of(0, 1, 3, Integer.MAX_VALUE)) {
+                for (final Student cursor : students.subList(0, Math.min(size, 20))) {
+                    final String context = "size " + size + ", limit " + limit + ", cursor " + cursor;
+                    assertEquals(context,
+                            page(byName, student -> StudentDB.COMPARING_BY_NAME.compare(student, cursor) > 0, limit),
+                            REFERENCE.findStudentsByNameAfter(students, cursor, limit));
+                    assertEquals(context,
+                            page(byId, student -> student.getId() > cursor.getId(), limit),
+                            REFERENCE.findStudentsByIdAfter(students, cursor.getId(), limit));
+                }
+                assertEquals(byId.subList(0, Math.min(size, limit)),
+                        REFERENCE.findStudentsByIdAfter(students, Integer.MIN_VALUE, limit));
+            }
+        }
+    }
+
+    // Students that count passes over them and cannot be copied at once
+    private static final class Passes extends AbstractCollection<Student> {
+        private final List<Student> students;
+        private int passes;
+
+        private Passes(final List<Student> students) {
+            this.students = students;
+        }
+
+        @Override
+        public Iterator<Student> iterator() {
+            passes++;
+            return students.iterator();
+        }
+
+        @Override
+        public int size() {
+            return students.size();
+        }
+
+        @Override
+        public Object[] toArray() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T[] toArray(final T[] a) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void lazyStreams() {
+        final List<Student> students = randomStudents(10_000);
+        final List<Student> byName = REFERENCE.sortStudentsByName(students);
+        final List<Student> byId = REFERENCE.sortStudentsById(students);
+        for (final int limit : List.of(1, 16, 17, 100, 1000)) {
+            // Pages of 16, 32, 64... students
+            int expected = 0;
+            for (int taken = 0; taken < limit; expected++) {
+                taken += 16 << expected;
+            }
+            final Passes byNamePasses = new Passes(students);
+            assertEquals(byName.subList(0, limit), REFERENCE.streamStudentsByName(byNamePasses).limit(limit).toList());
+            assertEquals("limit " + limit, expected, byNamePasses.passes);
+            final Passes byIdPasses = new Passes(students);
+            assertEquals(byId.subList(0, limit), REFERENCE.streamStudentsById(byIdPasses).limit(limit).toList());
+            assertEquals("limit " + limit, expected, byIdPasses.passes);
+        }
+        assertEquals(byName, REFERENCE.streamStudentsByName(new Passes(students)).toList());
+        assertEquals(byId, REFERENCE.streamStudentsById(new Passes(students)).toList());
+    }
+
+    private static void checkGroups(final String context, final ConcurrentStudentDB db, final List<Student> students) {
+        for (final GroupName group : GroupName.values()) {
+            assertEquals(context + ", " + group, REFERENCE.findStudentsByGroup(students, group), db.findStudentsByGroup(group));
+            assertEquals(context + ", " + group, REFERENCE.findStudentNamesByGroup(students, group), db.findStudentNamesByGroup(group));
+        }
+        assertEquals(context, sorted(students), sorted(db.getStudents()));
+    }
+
+    // Students with equal names and ids may differ by group only
+    private static List<Student> sorted(final List<Student> students) {
+        final List<Student> result = new ArrayList<>(students);
+        result.sort(Comparator.<Student>comparingInt(Student::getId).thenComparing(Student::getGroup)
+                .thenComparing(Student::getLastName).thenComparing(Student::getFirstName));
+        return result;
+    }
+
+    @Test
+    public void concurrent() {
+        for (final int size : SIZES) {
+            final List<Student> students = randomStudents(size);
+            final ConcurrentStudentDB bulk = new ConcurrentStudentDB(students);
+            final ConcurrentStudentDB incremental = new ConcurrentStudentDB();
+            students.forEach(incremental::add);
+            checkGroups("bulk " + size, bulk, students);
+            checkGroups("incremental " + size, incremental, students);
+
+            final List<Student> remaining = new ArrayList<>(students);
+            for (int i = 0; i < size / 2; i++) {
+                final Student student = students.get(random.nextInt(size));
+                final boolean removed = remaining.remove(student);
+                assertEquals(removed, bulk.remove(student));
+                assertEquals(removed, incremental.remove(student));
+            }
+            assertFalse(bulk.remove(new Student(-1, "Nobody", "Nobody", GroupName.M3232)));
+            checkGroups("bulk after removes " + size, bulk, remaining);
+            checkGroups("incremental after removes " + size, incremental, remaining);
+
+            final Student added = new Student(size, "Anna", "Smith", GroupName.M3239);
+            bulk.add(added);
+            remaining.add(added);
+            checkGroups("bulk after add " + size, bulk, remaining);
+        }
+    }
+
+    @Test
+    public void concurrentUpdates() throws InterruptedException {
+        final List<Student> students = randomStudents(10_000);
+        final ConcurrentStudentDB db = new ConcurrentStudentDB(students.subList(0, 1000));
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final List<Student> part = students.subList(1000 + t * 2250, 1000 + (t + 1) * 2250);
+            threads.add(new Thread(() -> part.forEach(db::add)));
+        }
+        threads.forEach(Thread::start);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        checkGroups("concurrent updates", db, students);
+    }
+}
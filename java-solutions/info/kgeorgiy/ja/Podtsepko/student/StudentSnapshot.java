@@ -0,0 +1,212 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+/**
+ * Binary snapshots of {@link StudentColumns}.
+ * <p>
+ * File format (little-endian): magic, version, number of rows, sizes of the first name,
+ * last name and group tables, then the columns of ids, first name codes and last name
+ * codes, the group column (indexes in the group table) and the three string tables.
+ * A string table is the offsets of its strings followed by their UTF-8 bytes.
+ * <p>
+ * The file is mapped to memory and the columns are copied with bulk reads, so loading
+ * is bound by the sequential read speed. Groups are stored by names, so snapshots stay
+ * valid if the order of {@link GroupName} constants changes.
+ */
+class StudentSnapshot {
+    private static final int MAGIC = 0x31424453; // SDB1
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    private StudentSnapshot() {
+    }
+
+    private static byte[][] encode(final int size, final IntFunction<String> strings) {
+        final byte[][] encoded = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            encoded[i] = strings.apply(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private static long tableSize(final byte[][] table) {
+        long size = (table.length + 1L) * Integer.BYTES;
+        for (final byte[] string : table) {
+            size += string.length;
+        }
+        return size;
+    }
+
+    private static void putTable(final ByteBuffer buffer, final byte[][] table) {
+        int offset = 0;
+        buffer.putInt(offset);
+        for (final byte[] string : table) {
+            offset += string.length;
+            buffer.putInt(offset);
+        }
+        for (final byte[] string : table) {
+            buffer.put(string);
+        }
+    }
+
+    /**
+     * Writes the columns to the file, replacing it atomically.
+     *
+     * @param columns columns to write
+     * @param file    file to write
+     * @throws IOException if an I/O error occurs or the snapshot is larger than 2 GB
+     */
+    static void write(final StudentColumns columns, final Path file) throws IOException {
+        final int rows = columns.size();
+        final byte[][] firstNames = encode(columns.firstNameCount(), columns::firstNameOf);
+        final byte[][] lastNames = encode(columns.lastNameCount(), columns::lastNameOf);
+        final byte[][] groups = encode(GROUPS.length, ordinal -> GROUPS[ordinal].name());
+        final long size = HEADER_SIZE + 3L * rows * Integer.BYTES + rows
+                + tableSize(firstNames) + tableSize(lastNames) + tableSize(groups);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot is too large: " + size + " bytes");
+        }
+
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putInt(rows)
+                        .putInt(firstNames.length)
+                        .putInt(lastNames.length)
+                        .putInt(groups.length);
+                for (int row = 0; row < rows; row++) {
+                    buffer.putInt(columns.id(row));
+                }
+                for (int row = 0; row < rows; row++) {
+                    buffer.putInt(columns.firstNameCode(row));
+                }
+                for (int row = 0; row < rows; row++) {
+                    buffer.putInt(columns.lastNameCode(row));
+                }
+                for (int row = 0; row < rows; row++) {
+                    buffer.put((byte) columns.groupOrdinal(row));
+                }
+                putTable(buffer, firstNames);
+                putTable(buffer, lastNames);
+                putTable(buffer, groups);
+                buffer.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void require(final ByteBuffer buffer, final long bytes) throws IOException {
+        if (bytes < 0 || buffer.remaining() < bytes) {
+            throw new IOException("Snapshot is truncated");
+        }
+    }
+
+    private static int[] getInts(final ByteBuffer buffer, final int count) throws IOException {
+        require(buffer, (long) count * Integer.BYTES);
+        final int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static String[] getTable(final ByteBuffer buffer, final int count) throws IOException {
+        final int[] offsets = getInts(buffer, count + 1);
+        require(buffer, offsets[count]);
+        final byte[] bytes = new byte[offsets[count]];
+        buffer.get(bytes);
+        final String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (offsets[i] < 0 || offsets[i] > offsets[i + 1] || offsets[i + 1] > bytes.length) {
+                throw new IOException("Corrupted string table");
+            }
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static void checkCodes(final int[] codes, final int limit) throws IOException {
+        for (final int code : codes) {
+            if (code < 0 || code >= limit) {
+                throw new IOException("Corrupted name code: " + code);
+            }
+        }
+    }
+
+    /**
+     * Reads the columns written by {@link #write(StudentColumns, Path)}.
+     *
+     * @param file file to read
+     * @return read columns
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    static StudentColumns read(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large: " + channel.size() + " bytes");
+            }
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported format");
+            }
+            final int rows = buffer.getInt();
+            final int firstNameCount = buffer.getInt();
+            final int lastNameCount = buffer.getInt();
+            final int groupCount = buffer.getInt();
+            if (rows < 0 || firstNameCount < 0 || lastNameCount < 0 || groupCount < 0 || groupCount > Byte.MAX_VALUE) {
+                throw new IOException("Corrupted header");
+            }
+
+            final int[] ids = getInts(buffer, rows);
+            final int[] firstNames = getInts(buffer, rows);
+            final int[] lastNames = getInts(buffer, rows);
+            require(buffer, rows);
+            final byte[] groups = new byte[rows];
+            buffer.get(groups);
+            final String[] firstNameDictionary = getTable(buffer, firstNameCount);
+            final String[] lastNameDictionary = getTable(buffer, lastNameCount);
+            final String[] groupNames = getTable(buffer, groupCount);
+
+            checkCodes(firstNames, firstNameCount);
+            checkCodes(lastNames, lastNameCount);
+            final byte[] ordinals = new byte[groupCount];
+            for (int i = 0; i < groupCount; i++) {
+                ordinals[i] = (byte) GroupName.valueOf(groupNames[i]).ordinal();
+            }
+            for (int row = 0; row < rows; row++) {
+                if (groups[row] < 0 || groups[row] >= groupCount) {
+                    throw new IOException("Corrupted group: " + groups[row]);
+                }
+                groups[row] = ordinals[groups[row]];
+            }
+            return new StudentColumns(ids, firstNames, lastNames, groups, firstNameDictionary, lastNameDictionary);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot is truncated", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown group: " + e.getMessage(), e);
+        }
+    }
+}
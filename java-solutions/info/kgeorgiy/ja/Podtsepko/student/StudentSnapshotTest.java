@@ -0,0 +1,154 @@
+package info.kgeorgiy.ja.Podtsepko.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class StudentSnapshotTest {
+    private static final int HEADER_SIZE = 24;
+
+    private static Path directory;
+
+    private final StudentDBTest students = new StudentDBTest();
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(StudentSnapshotTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(StudentSnapshotTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static void assertInvalid(final String context, final byte[] data) throws IOException {
+        final Path file = Files.write(directory.resolve("invalid"), data);
+        try {
+            ColumnarStudentDB.load(file);
+            fail(context + ": expected IOException");
+        } catch (final IOException ignored) {
+        }
+    }
+
+    private static byte[] snapshot(final String name, final List<Student> students) throws IOException {
+        final Path file = directory.resolve(name);
+        new ColumnarStudentDB(students).save(file);
+        return Files.readAllBytes(file);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        for (final int size : new int[]{0, 1, 10, 1000}) {
+            final List<Student> original = students.randomStudents(size);
+            final Path file = directory.resolve("students-" + size);
+            new ColumnarStudentDB(original).save(file);
+            final ColumnarStudentDB loaded = ColumnarStudentDB.load(file);
+            StudentDBTest.checkQueries("loaded " + size, loaded, original, loaded.getStudents());
+
+            // Saving the loaded database gives the same file
+            final Path copy = directory.resolve("copy-" + size);
+            loaded.save(copy);
+            assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+        }
+    }
+
+    @Test
+    public void overwrite() throws IOException {
+        final Path file = directory.resolve("overwrite");
+        final Student igor = new Student(1, "Igor", "Подцепко", GroupName.M3239);
+        new ColumnarStudentDB(List.of(new Student(2, "Anna", "Smith", GroupName.M3232))).save(file);
+        new ColumnarStudentDB(List.of(igor)).save(file);
+        assertEquals(List.of(igor), new ArrayList<>(ColumnarStudentDB.load(file).getStudents()));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(path -> path.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        final byte[] data = snapshot("truncated", students.randomStudents(10));
+        for (int length = 0; length < data.length; length++) {
+            assertInvalid("length " + length, Arrays.copyOf(data, length));
+        }
+        try {
+            ColumnarStudentDB.load(directory.resolve("missing"));
+            fail("missing: expected IOException");
+        } catch (final IOException ignored) {
+        }
+    }
+
+    @Test
+    public void corrupted() throws IOException {
+        final List<Student> original = List.of(
+                new Student(1, "Igor", "Podtsepko", GroupName.M3239),
+                new Student(2, "Anna", "Smith", GroupName.M3232)
+        );
+        final byte[] data = snapshot("corrupted", original);
+        final int rows = original.size();
+
+        final byte[] magic = data.clone();
+        magic[0] ^= 1;
+        assertInvalid("magic", magic);
+
+        final byte[] version = data.clone();
+        ByteBuffer.wrap(version).order(ByteOrder.LITTLE_ENDIAN).putInt(4, 2);
+        assertInvalid("version", version);
+
+        for (int field = 2; field < HEADER_SIZE / Integer.BYTES; field++) {
+            final byte[] header = data.clone();
+            ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).putInt(field * Integer.BYTES, -1);
+            assertInvalid("header field " + field, header);
+            ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).putInt(field * Integer.BYTES, Integer.MAX_VALUE);
+            assertInvalid("header field " + field, header);
+        }
+
+        // First name and last name codes follow the ids
+        for (final int column : new int[]{1, 2}) {
+            final byte[] codes = data.clone();
+            ByteBuffer.wrap(codes).order(ByteOrder.LITTLE_ENDIAN).putInt(HEADER_SIZE + column * rows * Integer.BYTES, rows);
+            assertInvalid("code of column " + column, codes);
+        }
+
+        final byte[] group = data.clone();
+        group[HEADER_SIZE + 3 * rows * Integer.BYTES] = (byte) GroupName.values().length;
+        assertInvalid("group", group);
+
+        // The group table is the last one
+        final byte[] groupName = data.clone();
+        final byte[] last = GroupName.values()[GroupName.values().length - 1].name().getBytes(StandardCharsets.UTF_8);
+        groupName[groupName.length - last.length] = 'X';
+        assertInvalid("group name", groupName);
+
+        assertEquals(original, new ArrayList<>(ColumnarStudentDB.load(directory.resolve("corrupted")).getStudents()));
+    }
+}
@@ -0,0 +1,178 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Finds files with the same content among the files listed in the input file.
+ * <p>
+ * The first pass reads only sizes of the files, the second pass hashes only files
+ * whose size is shared with another file. Paths that lead to the same file (the same
+ * {@link BasicFileAttributes#fileKey() file key} or real path) are hashed once.
+ * Every group of duplicates is written as lines {@code <hash> <path>} followed by
+ * an empty line, as soon as all files of its size are hashed, so only the files of
+ * partially hashed sizes are kept in memory.
+ * <p>
+ * Accepts the same arguments as {@link Walk}, see {@link WalkOptions}.
+ */
+public class DuplicateWalk {
+    private record Candidate(String hash, String path) {
+    }
+
+    // Files of the same size, kept until all of them are hashed
+    private static class Bucket {
+        final Set<Object> files = new HashSet<>();
+        final List<Candidate> candidates = new ArrayList<>();
+    }
+
+    /**
+     * Entry point of {@link DuplicateWalk}.
+     *
+     * @param args command line arguments, see {@link WalkOptions}
+     */
+    public static void main(String[] args) {
+        final WalkOptions options = WalkOptions.parse(args, "DuplicateWalk");
+        if (options == null) {
+            return;
+        }
+        final FileHasher hasher = Walk.newHasher(options);
+        if (hasher == null) {
+            return;
+        }
+        final Path inputFilePath = Walk.safePathOf(options.input, "input");
+        if (inputFilePath == null) {
+            return;
+        }
+        final Path outputFilePath = Walk.outputPathOf(options.output);
+        if (outputFilePath == null) {
+            return;
+        }
+
+        try {
+            final SizeIndex sizes;
+            try {
+                sizes = readSizes(inputFilePath);
+            } catch (IOException e) {
+                System.err.printf("Error: cannot read input file (%s)%n", e.getLocalizedMessage());
+                return;
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(outputFilePath, StandardCharsets.UTF_8)) {
+                writeDuplicates(inputFilePath, sizes, hasher, options, writer);
+            } catch (IOException e) {
+                System.err.printf("Error: cannot find duplicates (%s)%n", e.getLocalizedMessage());
+            }
+        } finally {
+            Walk.finish(hasher);
+        }
+    }
+
+    private static SizeIndex readSizes(final Path input) throws IOException {
+        final SizeIndex sizes = new SizeIndex();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sizes.add(sizeOf(line));
+            }
+        }
+        return sizes;
+    }
+
+    private static long sizeOf(final String file) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(Path.of(file), BasicFileAttributes.class);
+            return attributes.isRegularFile() ? attributes.size() : -1;
+        } catch (InvalidPathException | IOException e) {
+            return -1;
+        }
+    }
+
+    // Identity of the file that does not depend on the path leading to it
+    private static Object fileKey(final String file) {
+        try {
+            final Path path = Path.of(file);
+            final Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            return key != null ? key : path.toRealPath();
+        } catch (InvalidPathException | IOException e) {
+            return file;
+        }
+    }
+
+    private static void writeDuplicates(
+            final Path input,
+            final SizeIndex sizes,
+            final FileHasher hasher,
+            final WalkOptions options,
+            final BufferedWriter writer
+    ) throws IOException {
+        final Map<Long, Bucket> buckets = new HashMap<>();
+        // Pipeline keeps the order, so sizes of the results are taken in the order of submission
+        final Queue<Long> submitted = new ArrayDeque<>();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             HashPipeline pipeline = new HashPipeline(hasher, options.threads, options.inFlight, (hash, path) -> {
+                 final long size = submitted.remove();
+                 if (!hash.equals(hasher.nullHash())) {
+                     buckets.get(size).candidates.add(new Candidate(hash, path));
+                 }
+                 finish(size, sizes, buckets, writer);
+             })) {
+            for (int i = 0; i < sizes.count(); i++) {
+                final String line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("input file was truncated");
+                }
+                if (sizes.collides(i)) {
+                    final long size = sizes.size(i);
+                    if (buckets.computeIfAbsent(size, s -> new Bucket()).files.add(fileKey(line))) {
+                        submitted.add(size);
+                        pipeline.submit(line);
+                    } else {
+                        finish(size, sizes, buckets, writer);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void finish(
+            final long size,
+            final SizeIndex sizes,
+            final Map<Long, Bucket> buckets,
+            final BufferedWriter writer
+    ) throws IOException {
+        if (sizes.finish(size)) {
+            writeGroups(buckets.remove(size).candidates, writer);
+        }
+    }
+
+    private static void writeGroups(final List<Candidate> candidates, final BufferedWriter writer) throws IOException {
+        candidates.sort(Comparator.comparing(Candidate::hash));
+        for (int from = 0, to; from < candidates.size(); from = to) {
+            to = from + 1;
+            while (to < candidates.size() && candidates.get(from).hash().equals(candidates.get(to).hash())) {
+                to++;
+            }
+            if (to - from > 1) {
+                for (final Candidate candidate : candidates.subList(from, to)) {
+                    writer.write(candidate.hash() + " " + candidate.path());
+                    writer.newLine();
+                }
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class DuplicateWalkTest {
+    private static Path directory;
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(DuplicateWalkTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(DuplicateWalkTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Groups of paths, in the order of the output
+    private static List<Set<String>> run(final String name, final List<Path> files, final String... options)
+            throws IOException {
+        final Path input = directory.resolve(name + ".in");
+        Files.write(input, files.stream().map(Path::toString).toList());
+        final Path output = directory.resolve(name + ".out");
+        final List<String> args = new ArrayList<>(List.of(input.toString(), output.toString()));
+        args.addAll(List.of(options));
+        DuplicateWalk.main(args.toArray(String[]::new));
+
+        final List<Set<String>> groups = new ArrayList<>();
+        Set<String> group = new HashSet<>();
+        for (final String line : Files.readAllLines(output)) {
+            if (line.isEmpty()) {
+                groups.add(group);
+                group = new HashSet<>();
+            } else {
+                group.add(line.substring(line.indexOf(' ') + 1));
+            }
+        }
+        assertTrue("unterminated group " + group, group.isEmpty());
+        return groups;
+    }
+
+    private static Path file(final String name, final String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static Set<String> group(final Path... files) {
+        final Set<String> group = new HashSet<>();
+        for (final Path file : files) {
+            group.add(file.toString());
+        }
+        return group;
+    }
+
+    @Test
+    public void groupsBySizeAndContent() throws IOException {
+        final Path a1 = file("a1", "aaaa");
+        final Path a2 = file("a2", "aaaa");
+        final Path b = file("b", "bbbb");
+        final Path c1 = file("c1", "cccccccc");
+        final Path c2 = file("c2", "cccccccc");
+        final Path c3 = file("c3", "cccccccc");
+        final Path unique = file("unique", "u");
+        final Path missing = directory.resolve("missing");
+        final List<Path> files = List.of(a1, c1, b, missing, c2, unique, a2, c3);
+
+        for (final String threads : List.of("1", "4")) {
+            final List<Set<String>> groups = run("groups-" + threads, files, "-threads", threads);
+            assertEquals(2, groups.size());
+            assertTrue(groups.contains(group(a1, a2)));
+            assertTrue(groups.contains(group(c1, c2, c3)));
+        }
+    }
+
+    @Test
+    public void groupsAreWrittenWhenSizeIsDone() throws IOException {
+        final Path small1 = file("small1", "s");
+        final Path small2 = file("small2", "s");
+        final Path large1 = file("large1", "large");
+        final Path large2 = file("large2", "large");
+        final List<Set<String>> groups = run("order", List.of(small1, large1, large2, small2));
+        assertEquals(List.of(group(large1, large2), group(small1, small2)), groups);
+    }
+
+    @Test
+    public void samePathIsNotDuplicate() throws IOException {
+        final Path file = file("same", "same content");
+        final Path link = Files.createSymbolicLink(directory.resolve("same-link"), file);
+        final Path hardLink = Files.createLink(directory.resolve("same-hard-link"), file);
+        final Path copy = file("same-copy", "same content");
+
+        assertEquals(List.of(), run("same", List.of(file, file, link, hardLink), "-threads", "2"));
+        final List<Set<String>> groups = run("same-copy", List.of(file, link, copy, file));
+        assertEquals(1, groups.size());
+        assertEquals(2, groups.get(0).size());
+        assertTrue(groups.get(0).contains(copy.toString()));
+    }
+}
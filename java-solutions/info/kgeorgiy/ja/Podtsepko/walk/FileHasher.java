@@ -0,0 +1,303 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Calculates hashes of files. Instances are not thread-safe: every worker
+ * owns its own hasher together with its buffer and digest.
+ */
+class FileHasher {
+    /**
+     * The way files are read.
+     */
+    enum ReadMode {
+        /**
+         * {@link DigestInputStream} over {@link Files#newInputStream}.
+         */
+        STREAM,
+        /**
+         * Reads through the reusable direct buffer.
+         */
+        DIRECT,
+        /**
+         * Maps file to memory by regions of {@link #MAPPED_REGION_SIZE}.
+         */
+        MAPPED,
+        /**
+         * {@link #MAPPED} for files of at least {@link #MAPPED_THRESHOLD} bytes, {@link #DIRECT} otherwise.
+         */
+        AUTO
+    }
+
+    private static final int BUFFER_SIZE = 1024 * 8; // 8 KB
+    private static final int DIRECT_BUFFER_SIZE = 1024 * 64; // 64 KB
+    private static final long MAPPED_THRESHOLD = 1024 * 1024 * 16; // 16 MB
+    private static final long MAPPED_REGION_SIZE = 1024 * 1024 * 1024; // 1 GB
+
+    private final MessageDigest digest;
+    private final String nullHash;
+    private final ReadMode mode;
+    private final TreeHasher tree;
+    private final HashCache cache;
+    private final WalkMetrics metrics;
+    private byte[] buffer;
+    private ByteBuffer directBuffer;
+    private long read;
+
+    /**
+     * Creates hasher for the specified digest algorithm.
+     *
+     * @param algorithm name of the digest algorithm, see {@link #newDigest(String)}
+     * @param mode      the way files are read
+     * @throws NoSuchAlgorithmException if algorithm is not supported
+     */
+    FileHasher(final String algorithm, final ReadMode mode) throws NoSuchAlgorithmException {
+        this(algorithm, mode, null, null, null);
+    }
+
+    private FileHasher(
+            final String algorithm,
+            final ReadMode mode,
+            final TreeHasher tree,
+            final HashCache cache,
+            final WalkMetrics metrics
+    ) throws NoSuchAlgorithmException {
+        digest = newDigest(algorithm);
+        this.mode = mode;
+        this.tree = tree;
+        this.cache = cache;
+        this.metrics = metrics;
+        nullHash = format(new byte[digest.getDigestLength()]);
+    }
+
+    /**
+     * Creates digest.
+     *
+     * @param algorithm {@link XxHash64#ALGORITHM} or any algorithm supported by {@link MessageDigest}
+     * @return new digest
+     * @throws NoSuchAlgorithmException if algorithm is not supported
+     */
+    static MessageDigest newDigest(final String algorithm) throws NoSuchAlgorithmException {
+        return XxHash64.ALGORITHM.equalsIgnoreCase(algorithm)
+                ? new XxHash64()
+                : MessageDigest.getInstance(algorithm);
+    }
+
+    /**
+     * Returns name of the digest algorithm, or label of the tree hash if it is used.
+     *
+     * @return name of the algorithm
+     */
+    String algorithm() {
+        return tree == null ? digest.getAlgorithm() : tree.label();
+    }
+
+    /**
+     * Returns length of the digest in bytes.
+     *
+     * @return length of the digest
+     */
+    int digestLength() {
+        return digest.getDigestLength();
+    }
+
+    /**
+     * Creates hasher with the same settings for another worker.
+     *
+     * @return new hasher
+     */
+    FileHasher copy() {
+        return with(tree, cache, metrics);
+    }
+
+    /**
+     * Creates hasher with the same settings that uses the specified cache.
+     *
+     * @param cache cache of the hashes, may be {@code null}
+     * @return new hasher
+     */
+    FileHasher withCache(final HashCache cache) {
+        return with(tree, cache, metrics);
+    }
+
+    /**
+     * Creates hasher with the same settings that calculates tree hashes.
+     *
+     * @param tree hasher of the chunked tree hashes, may be {@code null}
+     * @return new hasher
+     */
+    FileHasher withTree(final TreeHasher tree) {
+        return with(tree, cache, metrics);
+    }
+
+    /**
+     * Creates hasher with the same settings that records metrics.
+     *
+     * @param metrics metrics of the walk, may be {@code null}
+     * @return new hasher
+     */
+    FileHasher withMetrics(final WalkMetrics metrics) {
+        return with(tree, cache, metrics);
+    }
+
+    private FileHasher with(final TreeHasher tree, final HashCache cache, final WalkMetrics metrics) {
+        try {
+            return new FileHasher(digest.getAlgorithm(), mode, tree, cache, metrics);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algorithm was available before: " + digest.getAlgorithm(), e);
+        }
+    }
+
+    /**
+     * Returns metrics recorded by the hasher.
+     *
+     * @return metrics of the walk, or {@code null} if they are not recorded
+     */
+    WalkMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes the cache to its file if the cache is used.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void saveCache() throws IOException {
+        if (cache != null) {
+            cache.save();
+        }
+    }
+
+    /**
+     * Returns hash that is reported for files that cannot be read.
+     *
+     * @return hex string of zero bytes
+     */
+    String nullHash() {
+        return nullHash;
+    }
+
+    private String format(final byte[] hash) {
+        final String hex = HexFormat.of().formatHex(hash);
+        return tree == null ? hex : tree.label() + ":" + hex;
+    }
+
+    /**
+     * Calculates hash of the file.
+     *
+     * @param path path to the file
+     * @return hex string of the hash, or {@link #nullHash()} if file cannot be read
+     */
+    String hash(final String path) {
+        final long start = System.nanoTime();
+        final Path filePath;
+        try {
+            filePath = Path.of(path);
+        } catch (InvalidPathException e) {
+            if (metrics != null) {
+                metrics.invalidPath();
+            }
+            return nullHash;
+        }
+        try {
+            final BasicFileAttributes attributes = cache == null
+                    ? null
+                    : Files.readAttributes(filePath, BasicFileAttributes.class);
+            if (attributes != null && attributes.isRegularFile()) {
+                final byte[] cached = cache.lookup(filePath, attributes);
+                if (cached != null) {
+                    if (metrics != null) {
+                        metrics.cached(System.nanoTime() - start);
+                    }
+                    return format(cached);
+                }
+            }
+            read = 0;
+            final byte[] hash;
+            if (tree == null) {
+                hash = digest(filePath);
+            } else {
+                hash = tree.digest(filePath);
+                read = metrics == null ? 0 : Files.size(filePath);
+            }
+            if (attributes != null && attributes.isRegularFile()) {
+                cache.store(filePath, attributes, hash);
+            }
+            if (metrics != null) {
+                metrics.hashed(read, System.nanoTime() - start);
+            }
+            return format(hash);
+        } catch (IOException e) {
+            if (metrics != null) {
+                metrics.ioError();
+            }
+            return nullHash;
+        }
+    }
+
+    private byte[] digest(final Path filePath) throws IOException {
+        digest.reset();
+        if (mode == ReadMode.STREAM) {
+            readStream(filePath);
+        } else {
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                if (mode == ReadMode.MAPPED || mode == ReadMode.AUTO && size >= MAPPED_THRESHOLD) {
+                    readMapped(channel, size);
+                } else {
+                    readDirect(channel);
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    private void readStream(final Path path) throws IOException {
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+        try (DigestInputStream input = new DigestInputStream(Files.newInputStream(path), digest)) {
+            int count;
+            while ((count = input.read(buffer)) >= 0) {
+                read += count;
+            }
+        }
+    }
+
+    private void readDirect(final FileChannel channel) throws IOException {
+        if (directBuffer == null) {
+            directBuffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        }
+        directBuffer.clear();
+        int count;
+        while ((count = channel.read(directBuffer)) >= 0) {
+            read += count;
+            digest.update(directBuffer.flip());
+            directBuffer.clear();
+        }
+    }
+
+    private void readMapped(final FileChannel channel, final long size) throws IOException {
+        // Files that are not regular (for example, pipes) report zero size
+        if (size == 0) {
+            readDirect(channel);
+            return;
+        }
+        for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+            final long length = Math.min(MAPPED_REGION_SIZE, size - position);
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+            read += length;
+        }
+    }
+}
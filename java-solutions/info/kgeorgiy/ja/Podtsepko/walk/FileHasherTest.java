@@ -0,0 +1,109 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class FileHasherTest {
+    // Around the sizes of the stream and direct buffers
+    private static final int[] SIZES = {0, 1, 8191, 8192, 8193, 65535, 65536, 65537, 200_000};
+    private static final List<String> ALGORITHMS = List.of("SHA-1", "SHA-256", "MD5", XxHash64.ALGORITHM);
+
+    private static Path directory;
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(FileHasherTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(FileHasherTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static String digest(final String algorithm, final byte[] data) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(FileHasher.newDigest(algorithm).digest(data));
+    }
+
+    @Test
+    public void readModes() throws IOException, NoSuchAlgorithmException {
+        final Random random = new Random(8723450982734509L);
+        for (final String algorithm : ALGORITHMS) {
+            for (final FileHasher.ReadMode mode : FileHasher.ReadMode.values()) {
+                // The hasher is reused, as by a worker
+                final FileHasher hasher = new FileHasher(algorithm, mode);
+                for (final int size : SIZES) {
+                    final byte[] data = new byte[size];
+                    random.nextBytes(data);
+                    final Path file = Files.write(directory.resolve("file-" + size), data);
+                    assertEquals(algorithm + " " + mode + " " + size, digest(algorithm, data), hasher.hash(file.toString()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void errors() throws NoSuchAlgorithmException {
+        for (final FileHasher.ReadMode mode : FileHasher.ReadMode.values()) {
+            final FileHasher hasher = new FileHasher("SHA-256", mode);
+            assertEquals("0".repeat(64), hasher.nullHash());
+            assertEquals(hasher.nullHash(), hasher.hash(directory.resolve("missing").toString()));
+            assertEquals(hasher.nullHash(), hasher.hash("invalid\0path"));
+            assertEquals(hasher.nullHash(), hasher.hash(directory.toString()));
+        }
+    }
+
+    @Test
+    public void copy() throws IOException, NoSuchAlgorithmException {
+        final byte[] data = "copy".getBytes();
+        final Path file = Files.write(directory.resolve("copy"), data);
+        final FileHasher hasher = new FileHasher("SHA-256", FileHasher.ReadMode.DIRECT);
+        assertEquals(hasher.hash(file.toString()), hasher.copy().hash(file.toString()));
+        assertEquals(digest("SHA-256", data), hasher.copy().hash(file.toString()));
+        assertEquals("SHA-256", hasher.copy().algorithm());
+        assertEquals(MessageDigest.getInstance("SHA-256").getDigestLength(), hasher.digestLength());
+    }
+
+    @Test
+    public void readModeOption() throws IOException, NoSuchAlgorithmException {
+        final byte[] data = new byte[100_000];
+        new Random(2345098723450987L).nextBytes(data);
+        final Path file = Files.write(directory.resolve("option"), data);
+        final Path input = Files.write(directory.resolve("option.in"), List.of(file.toString()));
+        final List<String> expected = List.of(digest("SHA-1", data) + " " + file);
+        for (final String mode : List.of("stream", "Direct", "MAPPED", "auto")) {
+            for (final String threads : List.of("1", "2")) {
+                final Path output = directory.resolve("option.out");
+                Walk.main(new String[]{input.toString(), output.toString(), "-io", mode, "-threads", threads});
+                assertEquals(mode + " " + threads, expected, Files.readAllLines(output));
+            }
+        }
+    }
+}
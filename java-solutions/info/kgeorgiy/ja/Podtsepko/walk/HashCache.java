@@ -0,0 +1,306 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Persistent cache of file hashes, keyed by absolute path.
+ * <p>
+ * An entry is valid while size, last modified time and file key of the file are
+ * the same as at the moment it was hashed, so unchanged files are answered
+ * from metadata only. The cache is thread-safe.
+ * <p>
+ * File format (big-endian): magic, version, algorithm and digest length, then the entries:
+ * path, size, last modified time in nanoseconds, file key and digest, then the index:
+ * 32-bit FNV-1a hash of the path and offset of the entry, sorted by hash and offset, and
+ * the number of entries. Strings are stored as length-prefixed UTF-8. The file is mapped to memory
+ * and looked up in place by a binary search over the index, so only the entries stored
+ * in this run are kept on the heap. {@link #save()} rewrites the file and drops entries
+ * of the files that no longer exist.
+ */
+class HashCache {
+    private static final int MAGIC = 0x57484331; // WHC1
+    private static final int VERSION = 2;
+    private static final int INDEX_ENTRY_SIZE = 2 * Integer.BYTES;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private record Entry(long size, long modified, String fileKey, byte[] digest) {
+        static Entry of(final BasicFileAttributes attributes, final byte[] digest) {
+            return new Entry(
+                    attributes.size(),
+                    attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    Objects.toString(attributes.fileKey(), ""),
+                    digest
+            );
+        }
+    }
+
+    private final Path file;
+    private final String algorithm;
+    private final int digestLength;
+    // Entries of the previous run, accessed by absolute positions only
+    private ByteBuffer mapped = EMPTY;
+    private int count;
+    private int index;
+    // Entries of the previous run that were looked up, by their positions in the index
+    private AtomicLongArray used = new AtomicLongArray(0);
+    // Entries stored in this run
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+    private HashCache(final Path file, final String algorithm, final int digestLength) {
+        this.file = file;
+        this.algorithm = algorithm;
+        this.digestLength = digestLength;
+    }
+
+    /**
+     * Opens cache stored in the file. Missing file, file of another algorithm or
+     * corrupted file gives empty cache.
+     *
+     * @param file         file of the cache
+     * @param algorithm    name of the digest algorithm
+     * @param digestLength length of the digest in bytes
+     * @return opened cache
+     */
+    static HashCache open(final Path file, final String algorithm, final int digestLength) {
+        final HashCache cache = new HashCache(file, algorithm, digestLength);
+        if (Files.exists(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("too large");
+                }
+                // The mapping stays valid after the channel is closed
+                cache.load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException | IndexOutOfBoundsException e) {
+                System.err.printf("Warning: ignoring hash cache %s (%s)%n", file, e.getLocalizedMessage());
+                cache.mapped = EMPTY;
+                cache.count = 0;
+                cache.used = new AtomicLongArray(0);
+            }
+        }
+        return cache;
+    }
+
+    // Checks the whole structure, so that lookups read the mapping without bound checks
+    private void load(final ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("unsupported format");
+        }
+        final int algorithmEnd = stringEnd(buffer, 2 * Integer.BYTES, buffer.limit());
+        if (!algorithm.equals(readString(buffer, 2 * Integer.BYTES)) || buffer.getInt(algorithmEnd) != digestLength) {
+            // Cache of another algorithm is replaced on save
+            return;
+        }
+        final int entries = algorithmEnd + Integer.BYTES;
+        final int count = buffer.getInt(buffer.limit() - Integer.BYTES);
+        final long index = (long) buffer.limit() - Integer.BYTES - (long) count * INDEX_ENTRY_SIZE;
+        if (count < 0 || index < entries) {
+            throw new IOException("corrupted index");
+        }
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            final int position = (int) index + i * INDEX_ENTRY_SIZE;
+            final int hash = buffer.getInt(position);
+            final int offset = buffer.getInt(position + Integer.BYTES);
+            if (hash < previous || offset < entries || offset >= index
+                    || entryEnd(buffer, offset, (int) index) < 0
+                    || hash(buffer, offset + Integer.BYTES, buffer.getInt(offset)) != hash) {
+                throw new IOException("corrupted entry " + i);
+            }
+            previous = hash;
+        }
+        this.mapped = buffer;
+        this.count = count;
+        this.index = (int) index;
+        this.used = new AtomicLongArray((count + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    // End of the string at the offset, or -1 if it does not fit before the limit
+    private static int stringEnd(final ByteBuffer buffer, final int offset, final int limit) {
+        if (offset < 0 || offset > limit - Integer.BYTES) {
+            return -1;
+        }
+        final int length = buffer.getInt(offset);
+        return length < 0 || length > limit - offset - Integer.BYTES ? -1 : offset + Integer.BYTES + length;
+    }
+
+    // End of the entry at the offset, or -1 if it does not fit before the limit
+    private int entryEnd(final ByteBuffer buffer, final int offset, final int limit) {
+        final int path = stringEnd(buffer, offset, limit);
+        final int fileKey = path < 0 ? -1 : stringEnd(buffer, path + 2 * Long.BYTES, limit);
+        return fileKey < 0 || fileKey > limit - digestLength ? -1 : fileKey + digestLength;
+    }
+
+    private static String readString(final ByteBuffer buffer, final int offset) throws IOException {
+        if (stringEnd(buffer, offset, buffer.limit()) < 0) {
+            throw new IOException("corrupted string");
+        }
+        final byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean equalsAt(final ByteBuffer buffer, final int offset, final byte[] bytes) {
+        return buffer.getInt(offset) == bytes.length
+                && buffer.slice(offset + Integer.BYTES, bytes.length).equals(ByteBuffer.wrap(bytes));
+    }
+
+    private static void writeString(final DataOutputStream output, final byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    // 32-bit FNV-1a
+    private static int hash(final ByteBuffer buffer, final int offset, final int length) {
+        int hash = 0x811c9dc5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (buffer.get(i) & 0xff)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    private static String key(final Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    // Position of the first index entry with the hash, or count if there is none
+    private int first(final int hash) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (mapped.getInt(index + middle * INDEX_ENTRY_SIZE) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns cached hash of the file if the file was not changed.
+     *
+     * @param path       path to the file
+     * @param attributes current attributes of the file
+     * @return cached digest, or {@code null} if there is no valid entry
+     */
+    byte[] lookup(final Path path, final BasicFileAttributes attributes) {
+        final byte[] key = key(path).getBytes(StandardCharsets.UTF_8);
+        final int hash = hash(ByteBuffer.wrap(key), 0, key.length);
+        for (int i = first(hash); i < count && mapped.getInt(index + i * INDEX_ENTRY_SIZE) == hash; i++) {
+            final int offset = mapped.getInt(index + i * INDEX_ENTRY_SIZE + Integer.BYTES);
+            if (equalsAt(mapped, offset, key)) {
+                final Entry entry = Entry.of(attributes, null);
+                final int sizes = offset + Integer.BYTES + key.length;
+                final int fileKey = sizes + 2 * Long.BYTES;
+                if (mapped.getLong(sizes) != entry.size()
+                        || mapped.getLong(sizes + Long.BYTES) != entry.modified()
+                        || !equalsAt(mapped, fileKey, entry.fileKey().getBytes(StandardCharsets.UTF_8))) {
+                    return null;
+                }
+                final int bit = i;
+                used.getAndAccumulate(bit / Long.SIZE, 1L << bit, (bits, mask) -> bits | mask);
+                final byte[] digest = new byte[digestLength];
+                mapped.get(fileKey + Integer.BYTES + mapped.getInt(fileKey), digest);
+                return digest;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remembers hash of the file.
+     *
+     * @param path       path to the file
+     * @param attributes attributes of the file before it was hashed
+     * @param digest     calculated digest
+     */
+    void store(final Path path, final BasicFileAttributes attributes, final byte[] digest) {
+        current.put(key(path), Entry.of(attributes, digest));
+    }
+
+    private static boolean exists(final String path) {
+        try {
+            return Files.exists(Path.of(path));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes cache to its file. Entries of the previous run that were not looked up
+     * are kept only if their files still exist.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void save() throws IOException {
+        // Hashes of the paths in the high halves and offsets of the entries in the low ones
+        final long[] keys = new long[count + current.size()];
+        int written = 0;
+        final Path parent = file.toAbsolutePath().getParent();
+        final Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                writeString(output, algorithm.getBytes(StandardCharsets.UTF_8));
+                output.writeInt(digestLength);
+                for (int i = 0; i < count; i++) {
+                    final int position = index + i * INDEX_ENTRY_SIZE;
+                    final int offset = mapped.getInt(position + Integer.BYTES);
+                    final String path = readString(mapped, offset);
+                    final boolean isUsed = (used.get(i / Long.SIZE) & 1L << i) != 0;
+                    if (!current.containsKey(path) && (isUsed || exists(path))) {
+                        keys[written++] = indexEntry(mapped.getInt(position), output.size());
+                        final byte[] entry = new byte[entryEnd(mapped, offset, index) - offset];
+                        mapped.get(offset, entry);
+                        output.write(entry);
+                    }
+                }
+                for (final Map.Entry<String, Entry> entry : current.entrySet()) {
+                    final byte[] path = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    keys[written++] = indexEntry(hash(ByteBuffer.wrap(path), 0, path.length), output.size());
+                    writeString(output, path);
+                    output.writeLong(entry.getValue().size());
+                    output.writeLong(entry.getValue().modified());
+                    writeString(output, entry.getValue().fileKey().getBytes(StandardCharsets.UTF_8));
+                    output.write(entry.getValue().digest());
+                }
+                // The counter of written bytes stops at Integer.MAX_VALUE
+                if (output.size() == Integer.MAX_VALUE) {
+                    throw new IOException("hash cache is too large");
+                }
+                Arrays.sort(keys, 0, written);
+                for (int i = 0; i < written; i++) {
+                    output.writeLong(keys[i]);
+                }
+                output.writeInt(written);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Index entry, ordered by hash and then by offset
+    private static long indexEntry(final int hash, final int offset) {
+        return (long) hash << Integer.SIZE | offset;
+    }
+}
@@ -0,0 +1,252 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class HashCacheTest {
+    private static final String ALGORITHM = "SHA-1";
+    private static final int DIGEST_LENGTH = 20;
+
+    private static Path directory;
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(HashCacheTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(HashCacheTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static BasicFileAttributes attributes(final Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+
+    private static byte[] digest(final int seed) {
+        final byte[] digest = new byte[DIGEST_LENGTH];
+        Arrays.fill(digest, (byte) seed);
+        return digest;
+    }
+
+    private static HashCache open(final Path file) {
+        return HashCache.open(file, ALGORITHM, DIGEST_LENGTH);
+    }
+
+    // The number of entries ends the file
+    private static int entries(final Path file) throws IOException {
+        final byte[] bytes = Files.readAllBytes(file);
+        return ByteBuffer.wrap(bytes).getInt(bytes.length - Integer.BYTES);
+    }
+
+    private static void assertNoTemporaryFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(path -> path.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    public void lookup() throws IOException {
+        final Path file = Files.writeString(directory.resolve("lookup"), "lookup");
+        final Path cacheFile = directory.resolve("lookup.cache");
+
+        final HashCache cache = open(cacheFile);
+        assertNull(cache.lookup(file, attributes(file)));
+        cache.store(file, attributes(file), digest(1));
+        cache.save();
+        assertNoTemporaryFiles();
+
+        final HashCache loaded = open(cacheFile);
+        assertArrayEquals(digest(1), loaded.lookup(file, attributes(file)));
+        // The same file by another path
+        assertArrayEquals(digest(1), loaded.lookup(directory.resolve(".").resolve("lookup"), attributes(file)));
+        assertNull(loaded.lookup(directory.resolve("other"), attributes(file)));
+    }
+
+    @Test
+    public void changedFile() throws IOException {
+        final Path file = Files.writeString(directory.resolve("changed"), "changed");
+        final Path cacheFile = directory.resolve("changed.cache");
+        final FileTime modified = Files.getLastModifiedTime(file);
+
+        final HashCache cache = open(cacheFile);
+        cache.store(file, attributes(file), digest(2));
+        cache.save();
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() - 10_000));
+        assertNull("modified time", open(cacheFile).lookup(file, attributes(file)));
+
+        Files.writeString(file, "changed twice");
+        Files.setLastModifiedTime(file, modified);
+        assertNull("size", open(cacheFile).lookup(file, attributes(file)));
+    }
+
+    @Test
+    public void otherAlgorithm() throws IOException {
+        final Path file = Files.writeString(directory.resolve("algorithm"), "algorithm");
+        final Path cacheFile = directory.resolve("algorithm.cache");
+
+        final HashCache cache = open(cacheFile);
+        cache.store(file, attributes(file), digest(3));
+        cache.save();
+
+        final HashCache other = HashCache.open(cacheFile, "SHA-256", 32);
+        assertNull(other.lookup(file, attributes(file)));
+        other.save();
+        // Cache of another algorithm is replaced
+        assertNull(open(cacheFile).lookup(file, attributes(file)));
+    }
+
+    @Test
+    public void corrupted() throws IOException {
+        final Path file = Files.writeString(directory.resolve("corrupted"), "corrupted");
+        final Path cacheFile = directory.resolve("corrupted.cache");
+
+        final HashCache cache = open(cacheFile);
+        cache.store(file, attributes(file), digest(4));
+        cache.save();
+        final byte[] valid = Files.readAllBytes(cacheFile);
+
+        for (int length = 0; length < valid.length; length++) {
+            Files.write(cacheFile, Arrays.copyOf(valid, length));
+            assertNull("length " + length, open(cacheFile).lookup(file, attributes(file)));
+        }
+
+        final byte[] magic = valid.clone();
+        magic[0] ^= 1;
+        Files.write(cacheFile, magic);
+        assertNull("magic", open(cacheFile).lookup(file, attributes(file)));
+
+        final byte[] count = valid.clone();
+        ByteBuffer.wrap(count).putInt(count.length - Integer.BYTES, Integer.MAX_VALUE);
+        Files.write(cacheFile, count);
+        assertNull("count", open(cacheFile).lookup(file, attributes(file)));
+
+        // The only index entry precedes the count: hash, then offset of the entry
+        final int index = valid.length - 3 * Integer.BYTES;
+        final byte[] hash = valid.clone();
+        hash[index] ^= 1;
+        Files.write(cacheFile, hash);
+        assertNull("hash", open(cacheFile).lookup(file, attributes(file)));
+
+        final byte[] offset = valid.clone();
+        ByteBuffer.wrap(offset).putInt(index + Integer.BYTES, index);
+        Files.write(cacheFile, offset);
+        assertNull("offset", open(cacheFile).lookup(file, attributes(file)));
+
+        // Corrupted cache is replaced on save
+        final HashCache replaced = open(cacheFile);
+        replaced.store(file, attributes(file), digest(5));
+        replaced.save();
+        assertArrayEquals(digest(5), open(cacheFile).lookup(file, attributes(file)));
+    }
+
+    @Test
+    public void saveDropsDeletedFiles() throws IOException {
+        final Path kept = Files.writeString(directory.resolve("kept"), "kept");
+        final Path unused = Files.writeString(directory.resolve("unused"), "unused");
+        final Path deleted = Files.writeString(directory.resolve("deleted"), "deleted");
+        final Path cacheFile = directory.resolve("deleted.cache");
+
+        final HashCache cache = open(cacheFile);
+        cache.store(kept, attributes(kept), digest(6));
+        cache.store(unused, attributes(unused), digest(7));
+        cache.store(deleted, attributes(deleted), digest(8));
+        cache.save();
+        assertEquals(3, entries(cacheFile));
+
+        Files.delete(deleted);
+        final HashCache loaded = open(cacheFile);
+        assertArrayEquals(digest(6), loaded.lookup(kept, attributes(kept)));
+        loaded.save();
+        assertEquals(2, entries(cacheFile));
+        // Entries that were not looked up are kept while their files exist
+        assertArrayEquals(digest(7), open(cacheFile).lookup(unused, attributes(unused)));
+        assertNoTemporaryFiles();
+    }
+
+    @Test
+    public void manyEntries() throws IOException {
+        final Path file = Files.writeString(directory.resolve("many"), "many");
+        final BasicFileAttributes attributes = attributes(file);
+        final Path cacheFile = directory.resolve("many.cache");
+        final int size = 1000;
+
+        // Paths of missing files, so only the entries that are looked up survive a save
+        final HashCache cache = open(cacheFile);
+        for (int i = 0; i < size; i++) {
+            cache.store(directory.resolve("missing" + i), attributes, digest(i));
+        }
+        cache.save();
+        assertEquals(size, entries(cacheFile));
+
+        final HashCache loaded = open(cacheFile);
+        for (int i = 0; i < size; i += 2) {
+            assertArrayEquals(digest(i), loaded.lookup(directory.resolve("missing" + i), attributes));
+        }
+        assertNull(loaded.lookup(directory.resolve("missing" + size), attributes));
+        loaded.save();
+        assertEquals(size / 2, entries(cacheFile));
+
+        final HashCache reloaded = open(cacheFile);
+        for (int i = 0; i < size; i++) {
+            final byte[] expected = i % 2 == 0 ? digest(i) : null;
+            assertArrayEquals(expected, reloaded.lookup(directory.resolve("missing" + i), attributes));
+        }
+    }
+
+    @Test
+    public void hasher() throws IOException, NoSuchAlgorithmException {
+        final Path file = Files.writeString(directory.resolve("hasher"), "original");
+        final Path cacheFile = directory.resolve("hasher.cache");
+        final String original = new FileHasher(ALGORITHM, FileHasher.ReadMode.AUTO).hash(file.toString());
+
+        final FileHasher hasher = new FileHasher(ALGORITHM, FileHasher.ReadMode.AUTO)
+                .withCache(open(cacheFile));
+        assertEquals(original, hasher.hash(file.toString()));
+        hasher.saveCache();
+
+        // Content is changed without changing the metadata, so the cached hash is returned
+        final FileTime modified = Files.getLastModifiedTime(file);
+        Files.write(file, "modified".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, modified);
+        final FileHasher cached = new FileHasher(ALGORITHM, FileHasher.ReadMode.AUTO)
+                .withCache(open(cacheFile));
+        assertEquals(original, cached.hash(file.toString()));
+
+        // Directories and missing files are not cached
+        assertEquals(cached.nullHash(), cached.hash(directory.toString()));
+        assertEquals(cached.nullHash(), cached.hash(directory.resolve("missing").toString()));
+        cached.saveCache();
+        assertEquals(1, entries(cacheFile));
+    }
+}
@@ -0,0 +1,144 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Hashes files on a pool of workers and passes results to the sink
+ * in the order in which files were submitted.
+ * <p>
+ * At most {@code inFlight} files are hashed or wait to be written at the same time,
+ * so memory usage does not depend on the number of files.
+ */
+class HashPipeline implements AutoCloseable {
+    /**
+     * Consumer of calculated hashes.
+     */
+    @FunctionalInterface
+    interface Sink {
+        void accept(String hash, String path) throws IOException;
+    }
+
+    private record Pending(String path, Future<String> hash) {
+    }
+
+    private final Sink sink;
+    private final FileHasher hasher;
+    private final ThreadLocal<FileHasher> hashers;
+    private final ForkJoinPool pool;
+    private final int inFlight;
+    private final Deque<Pending> window = new ArrayDeque<>();
+
+    /**
+     * Creates pipeline.
+     *
+     * @param hasher   hasher of the calling thread, workers use its {@link FileHasher#copy() copies}
+     * @param threads  number of workers, files are hashed in the calling thread if it is {@code 1}
+     * @param inFlight maximum number of files that are processed at the same time
+     * @param sink     consumer of the results
+     */
+    HashPipeline(final FileHasher hasher, final int threads, final int inFlight, final Sink sink) {
+        this.hasher = hasher;
+        this.sink = sink;
+        this.inFlight = inFlight;
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+            hashers = ThreadLocal.withInitial(hasher::copy);
+        } else {
+            pool = null;
+            hashers = null;
+        }
+    }
+
+    /**
+     * Reports that the path cannot be hashed, keeping the order of the output.
+     *
+     * @param path path to report
+     * @throws IOException if sink fails
+     */
+    void fail(final String path) throws IOException {
+        if (pool == null) {
+            sink.accept(hasher.nullHash(), path);
+            return;
+        }
+        add(path, () -> CompletableFuture.completedFuture(hasher.nullHash()));
+    }
+
+    /**
+     * Schedules hashing of the file.
+     *
+     * @param path path to the file
+     * @throws IOException if sink fails or current thread is interrupted
+     */
+    void submit(final String path) throws IOException {
+        if (pool == null) {
+            sink.accept(hasher.hash(path), path);
+            return;
+        }
+        add(path, () -> pool.submit(() -> hashers.get().hash(path)));
+    }
+
+    // Waits for a place in the window, so failed paths are bounded by inFlight too
+    private void add(final String path, final Supplier<Future<String>> hash) throws IOException {
+        while (window.size() >= inFlight) {
+            writeFirst();
+        }
+        window.add(new Pending(path, hash.get()));
+        flush(false);
+        updateQueueDepth();
+    }
+
+    private void updateQueueDepth() {
+        if (hasher.metrics() != null) {
+            hasher.metrics().queueDepth(window.size());
+        }
+    }
+
+    private void flush(final boolean all) throws IOException {
+        while (!window.isEmpty() && (all || window.peekFirst().hash().isDone())) {
+            writeFirst();
+        }
+    }
+
+    private void writeFirst() throws IOException {
+        final Pending pending = window.removeFirst();
+        String hash;
+        try {
+            hash = pending.hash().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + pending.path());
+        } catch (ExecutionException e) {
+            System.err.printf("Error: cannot hash %s (%s)%n", pending.path(), e.getCause());
+            if (hasher.metrics() != null) {
+                hasher.metrics().ioError();
+            }
+            hash = hasher.nullHash();
+        }
+        sink.accept(hash, pending.path());
+    }
+
+    /**
+     * Waits for all submitted files and stops workers.
+     *
+     * @throws IOException if sink fails or current thread is interrupted
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush(true);
+            updateQueueDepth();
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+}
@@ -1,4 +1,55 @@
 package info.kgeorgiy.ja.Podtsepko.walk;
 
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Calculates hashes of all regular files in the directories listed in the input file.
+ * <p>
+ * Directories are traversed in the calling thread while files are hashed
+ * by the workers of the {@link HashPipeline}, so output is written as soon as
+ * hashes are ready and the memory usage does not depend on the size of the trees.
+ */
 public class RecursiveWalk {
+    /**
+     * Entry point of {@link RecursiveWalk}.
+     *
+     * @param args command line arguments, see {@link WalkOptions}
+     */
+    public static void main(String[] args) {
+        Walk.run(args, "RecursiveWalk", RecursiveWalk::walk);
+    }
+
+    private static void walk(final String root, final HashPipeline pipeline) throws IOException {
+        final Path rootPath;
+        try {
+            rootPath = Path.of(root);
+        } catch (InvalidPathException e) {
+            pipeline.fail(root);
+            return;
+        }
+        Files.walkFileTree(rootPath, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+                // Pipes, sockets and devices may block readers forever, so only regular files are hashed
+                if (attributes.isRegularFile() || attributes.isSymbolicLink() && Files.isRegularFile(file)) {
+                    pipeline.submit(file.toString());
+                } else {
+                    pipeline.fail(file.toString());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException e) throws IOException {
+                pipeline.fail(file.toString());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
 }
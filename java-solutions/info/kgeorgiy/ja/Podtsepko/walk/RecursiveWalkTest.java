@@ -0,0 +1,125 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class RecursiveWalkTest {
+    private static final String NULL_HASH = "0".repeat(40);
+
+    private static Path directory;
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(RecursiveWalkTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(RecursiveWalkTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static Path fifo(final Path path) throws InterruptedException {
+        try {
+            Assume.assumeTrue(new ProcessBuilder("mkfifo", path.toString()).start().waitFor() == 0);
+        } catch (final IOException e) {
+            Assume.assumeNoException(e);
+        }
+        return path;
+    }
+
+    private static Map<String, String> walk(final Path root, final String threads) throws IOException {
+        final Path input = Files.writeString(directory.resolve("input-" + threads), root + "\n");
+        final Path output = directory.resolve("output-" + threads);
+        RecursiveWalk.main(new String[]{input.toString(), output.toString(), "-threads", threads});
+        final Map<String, String> hashes = new HashMap<>();
+        for (final String line : Files.readAllLines(output)) {
+            final int space = line.indexOf(' ');
+            hashes.put(line.substring(space + 1), line.substring(0, space));
+        }
+        return hashes;
+    }
+
+    @Test(timeout = 10_000)
+    public void specialFilesAreNotHashed() throws IOException, InterruptedException {
+        final Path root = Files.createDirectories(directory.resolve("tree"));
+        final Path file = Files.writeString(root.resolve("file"), "hello");
+        final Path pipe = fifo(root.resolve("pipe"));
+        final Path fileLink = Files.createSymbolicLink(root.resolve("file-link"), file);
+        final Path pipeLink = Files.createSymbolicLink(root.resolve("pipe-link"), pipe);
+
+        for (final String threads : List.of("1", "4")) {
+            final Map<String, String> hashes = walk(root, threads);
+            assertEquals(4, hashes.size());
+            assertEquals("aaf4c61ddcc5e8a2dabede0f3b482cd9aea9434d", hashes.get(file.toString()));
+            assertEquals(hashes.get(file.toString()), hashes.get(fileLink.toString()));
+            assertEquals(NULL_HASH, hashes.get(pipe.toString()));
+            assertEquals(NULL_HASH, hashes.get(pipeLink.toString()));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void failuresWaitForWindow() throws Exception {
+        final int inFlight = 4;
+        final Path pipe = fifo(directory.resolve("slow-pipe"));
+        final List<String> written = new ArrayList<>();
+        final AtomicInteger added = new AtomicInteger();
+        final FileHasher hasher = new FileHasher("SHA-1", FileHasher.ReadMode.AUTO);
+        final HashPipeline pipeline = new HashPipeline(hasher, 2, inFlight, (hash, path) -> written.add(path));
+
+        final Thread producer = new Thread(() -> {
+            try (pipeline) {
+                // The worker is blocked on the pipe, so the window cannot be written
+                pipeline.submit(pipe.toString());
+                added.incrementAndGet();
+                for (int i = 0; i < 100; i++) {
+                    pipeline.fail("missing-" + i);
+                    added.incrementAndGet();
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        producer.start();
+        Thread.sleep(300);
+        assertEquals(inFlight, added.get());
+
+        // Opening and closing the pipe lets the worker read an empty file
+        Files.newOutputStream(pipe).close();
+        producer.join();
+        assertEquals(101, written.size());
+        assertEquals(pipe.toString(), written.get(0));
+        for (int i = 0; i < 100; i++) {
+            assertEquals("missing-" + i, written.get(i + 1));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import java.util.Arrays;
+
+/**
+ * Sizes of the listed files and the number of files of every size,
+ * stored in primitive arrays without boxing.
+ */
+class SizeIndex {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private int count;
+
+    // Open addressing hash table: size -> number of files of this size
+    private long[] keys = newKeys(INITIAL_CAPACITY);
+    private int[] counts = new int[INITIAL_CAPACITY];
+    // Number of files of the size that are processed, see finish
+    private int[] finished = new int[INITIAL_CAPACITY];
+    private int distinct;
+
+    private static long[] newKeys(final int capacity) {
+        final long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    /**
+     * Adds the next file.
+     *
+     * @param size size of the file, negative if the file cannot be read
+     */
+    void add(final long size) {
+        if (count == sizes.length) {
+            sizes = Arrays.copyOf(sizes, count * 2);
+        }
+        sizes[count++] = size;
+        if (size >= 0) {
+            counts[slot(size)]++;
+        }
+    }
+
+    /**
+     * Returns size of the file.
+     *
+     * @param index index of the file in order of addition
+     * @return size of the file, negative if the file cannot be read
+     */
+    long size(final int index) {
+        return sizes[index];
+    }
+
+    /**
+     * Returns number of added files.
+     *
+     * @return number of files
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Checks whether there are other files of the same size.
+     *
+     * @param index index of the file in order of addition
+     * @return {@code true} if the file may have duplicates
+     */
+    boolean collides(final int index) {
+        final long size = sizes[index];
+        if (size < 0) {
+            return false;
+        }
+        final int slot = find(size);
+        return keys[slot] == size && counts[slot] > 1;
+    }
+
+    /**
+     * Marks one more file of the size as processed.
+     *
+     * @param size size of the file
+     * @return {@code true} if all added files of this size are processed
+     */
+    boolean finish(final long size) {
+        final int slot = find(size);
+        return ++finished[slot] == counts[slot];
+    }
+
+    private int slot(final long size) {
+        if (2 * (distinct + 1) > keys.length) {
+            rehash();
+        }
+        final int slot = find(size);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = size;
+            distinct++;
+        }
+        return slot;
+    }
+
+    private int find(final long size) {
+        final int mask = keys.length - 1;
+        final long hash = size * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != size) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        final long[] oldKeys = keys;
+        final int[] oldCounts = counts;
+        final int[] oldFinished = finished;
+        keys = newKeys(oldKeys.length * 2);
+        counts = new int[keys.length];
+        finished = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                final int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                finished[slot] = oldFinished[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calculates Merkle tree hashes of files, hashing chunks of a file in parallel.
+ * <p>
+ * The file is split into chunks of the fixed size. Leaf is the digest of
+ * {@code 0x00} followed by the chunk, inner node is the digest of {@code 0x01}
+ * followed by the digests of its children, the last node of an odd level is moved
+ * to the next level as is. Empty file has single empty leaf.
+ * <p>
+ * Chunks are read with positional reads and hashed in the {@link ForkJoinPool} of the
+ * calling worker, or in the {@link ForkJoinPool#commonPool() common pool} if it is
+ * called from another thread. The hasher is thread-safe.
+ */
+class TreeHasher {
+    private static final byte LEAF = 0x00;
+    private static final byte NODE = 0x01;
+    private static final int BUFFER_SIZE = 1024 * 64; // 64 KB
+
+    private record Worker(MessageDigest digest, ByteBuffer buffer) {
+    }
+
+    private final String algorithm;
+    private final long chunkSize;
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * Creates tree hasher.
+     *
+     * @param algorithm name of the digest algorithm, see {@link FileHasher#newDigest(String)}
+     * @param chunkSize size of the leaf chunks in bytes
+     * @throws NoSuchAlgorithmException if algorithm is not supported
+     */
+    TreeHasher(final String algorithm, final long chunkSize) throws NoSuchAlgorithmException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size should be positive");
+        }
+        this.algorithm = FileHasher.newDigest(algorithm).getAlgorithm();
+        this.chunkSize = chunkSize;
+        workers = ThreadLocal.withInitial(() -> {
+            try {
+                return new Worker(FileHasher.newDigest(this.algorithm), ByteBuffer.allocateDirect(BUFFER_SIZE));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algorithm was available before: " + this.algorithm, e);
+            }
+        });
+    }
+
+    /**
+     * Returns label of the tree hashes that distinguishes them from plain digests.
+     *
+     * @return label of the hashes
+     */
+    String label() {
+        return "TREE-" + algorithm + "-" + chunkSize;
+    }
+
+    /**
+     * Calculates tree hash of the file.
+     *
+     * @param path path to the file
+     * @return root of the tree
+     * @throws IOException if an I/O error occurs
+     */
+    byte[] digest(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final long chunks = Math.max(1, size / chunkSize + (size % chunkSize == 0 ? 0 : 1));
+            if (chunks > Integer.MAX_VALUE) {
+                throw new IOException("Too many chunks of " + chunkSize + " bytes: " + chunks);
+            }
+            final byte[][] nodes = new byte[(int) chunks][];
+            try {
+                final Leaves leaves = new Leaves(channel, size, nodes, 0, nodes.length);
+                if (ForkJoinTask.inForkJoinPool()) {
+                    leaves.invoke();
+                } else {
+                    ForkJoinPool.commonPool().invoke(leaves);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return root(nodes);
+        }
+    }
+
+    private byte[] root(final byte[][] nodes) {
+        final MessageDigest digest = workers.get().digest();
+        int count = nodes.length;
+        while (count > 1) {
+            int next = 0;
+            for (int i = 0; i + 1 < count; i += 2) {
+                digest.update(NODE);
+                digest.update(nodes[i]);
+                digest.update(nodes[i + 1]);
+                nodes[next++] = digest.digest();
+            }
+            if (count % 2 == 1) {
+                nodes[next++] = nodes[count - 1];
+            }
+            count = next;
+        }
+        return nodes[0];
+    }
+
+    private class Leaves extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long size;
+        private final byte[][] nodes;
+        private final int from;
+        private final int to;
+
+        Leaves(final FileChannel channel, final long size, final byte[][] nodes, final int from, final int to) {
+            this.channel = channel;
+            this.size = size;
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new Leaves(channel, size, nodes, from, middle), new Leaves(channel, size, nodes, middle, to));
+                return;
+            }
+            try {
+                nodes[from] = leaf(from * chunkSize, Math.min(size, (from + 1) * chunkSize));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private byte[] leaf(long position, final long end) throws IOException {
+            final Worker worker = workers.get();
+            final MessageDigest digest = worker.digest();
+            final ByteBuffer buffer = worker.buffer();
+            digest.reset();
+            digest.update(LEAF);
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                final int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("File was truncated while hashing");
+                }
+                position += read;
+                digest.update(buffer.flip());
+            }
+            return digest.digest();
+        }
+    }
+}
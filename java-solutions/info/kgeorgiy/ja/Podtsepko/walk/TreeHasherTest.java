@@ -0,0 +1,115 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TreeHasherTest {
+    private static Path directory;
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(TreeHasherTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(TreeHasherTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (final Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // Straightforward tree hash of the bytes, see the description of TreeHasher
+    private static byte[] expected(final String algorithm, final byte[] bytes, final int chunkSize)
+            throws NoSuchAlgorithmException {
+        final MessageDigest digest = FileHasher.newDigest(algorithm);
+        List<byte[]> nodes = new ArrayList<>();
+        for (int from = 0; from < bytes.length || from == 0; from += chunkSize) {
+            digest.update((byte) 0);
+            digest.update(bytes, from, Math.min(chunkSize, bytes.length - from));
+            nodes.add(digest.digest());
+        }
+        while (nodes.size() > 1) {
+            final List<byte[]> next = new ArrayList<>();
+            for (int i = 0; i + 1 < nodes.size(); i += 2) {
+                digest.update((byte) 1);
+                digest.update(nodes.get(i));
+                digest.update(nodes.get(i + 1));
+                next.add(digest.digest());
+            }
+            if (nodes.size() % 2 == 1) {
+                next.add(nodes.get(nodes.size() - 1));
+            }
+            nodes = next;
+        }
+        return nodes.get(0);
+    }
+
+    private static void check(final String algorithm, final int size, final int chunkSize)
+            throws IOException, NoSuchAlgorithmException {
+        final byte[] bytes = new byte[size];
+        new Random(size * 31L + chunkSize).nextBytes(bytes);
+        final Path file = Files.write(directory.resolve(size + "-" + chunkSize), bytes);
+        assertArrayEquals(
+                algorithm + ", size " + size + ", chunk " + chunkSize,
+                expected(algorithm, bytes, chunkSize),
+                new TreeHasher(algorithm, chunkSize).digest(file)
+        );
+    }
+
+    @Test
+    public void leavesAndNodes() throws IOException, NoSuchAlgorithmException {
+        for (final String algorithm : List.of("XXH64", "SHA-256")) {
+            for (final int size : new int[]{0, 1, 10, 31, 32, 33, 100, 1000, 100_000}) {
+                for (final int chunkSize : new int[]{1, 7, 10, 32, 1024, 70_000}) {
+                    if (size / chunkSize < 2000) {
+                        check(algorithm, size, chunkSize);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void differentTails() throws IOException, NoSuchAlgorithmException {
+        final TreeHasher hasher = new TreeHasher("XXH64", 1024);
+        final Path first = Files.writeString(directory.resolve("first"), "0123456789");
+        final Path second = Files.writeString(directory.resolve("second"), "0123456780");
+        assertFalse(Arrays.equals(hasher.digest(first), hasher.digest(second)));
+    }
+
+    @Test(expected = IOException.class)
+    public void tooManyChunks() throws IOException, NoSuchAlgorithmException {
+        final Path file = directory.resolve("sparse");
+        try (RandomAccessFile sparse = new RandomAccessFile(file.toFile(), "rw")) {
+            sparse.setLength(1L << 32);
+        }
+        new TreeHasher("XXH64", 1).digest(file);
+    }
+}
@@ -5,40 +5,19 @@ import java.nio.file.Path;
 import java.nio.file.Files;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.InvalidPathException;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
 import java.util.Objects;
 
-@SuppressWarnings("StatementWithEmptyBody")
 public class Walk {
-    private static final int BUFFER_SIZE = 1024 * 8; // 8 KB
-    private static final byte[] BUFFER = new byte[BUFFER_SIZE];
-    private static final String NULL_HASH = HexFormat.of().formatHex(new byte[20]);
-    private static final String ALGORITHM = "SHA-1";
-
-    private static String processFile(String path, MessageDigest digest) {
-        Path filePath;
-        try {
-            filePath = Path.of(path);
-        } catch (InvalidPathException e) {
-            return NULL_HASH;
-        }
-        try (DigestInputStream input = new DigestInputStream(Files.newInputStream(filePath), digest)) {
-            while (input.read(BUFFER) >= 0) {
-                // read file
-            }
-            MessageDigest messageDigest = input.getMessageDigest();
-            return HexFormat.of().formatHex(messageDigest.digest());
-            // :NOTE: SecurityException
-            // :FIX: Removed processing SecurityException
-        } catch (IOException e) {
-            return NULL_HASH;
-        }
+    /**
+     * Handler of the lines of the input file.
+     */
+    @FunctionalInterface
+    interface LineProcessor {
+        void process(String line, HashPipeline pipeline) throws IOException;
     }
 
-    private static Path safePathOf(String path, String pathName) {
+    static Path safePathOf(String path, String pathName) {
         try {
             return Path.of(path);
         } catch (InvalidPathException e) {
@@ -48,31 +27,118 @@ public class Walk {
     }
 
     public static void main(String[] args) {
-        if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
-            System.err.println("Error: expected input and output file names as arguments for Walk");
+        run(args, "Walk", (file, pipeline) -> pipeline.submit(file));
+    }
+
+    /**
+     * Reads input file line by line and writes calculated hashes to the output file.
+     *
+     * @param args      command line arguments, see {@link WalkOptions}
+     * @param name      name of the program for error messages
+     * @param processor submits files of every line to the pipeline
+     */
+    static void run(String[] args, String name, LineProcessor processor) {
+        final WalkOptions options = WalkOptions.parse(args, name);
+        if (options == null) {
             return;
         }
-        MessageDigest digest;
-        try {
-            digest = MessageDigest.getInstance(ALGORITHM);
-        } catch (NoSuchAlgorithmException e) {
-            System.err.println("No such " + ALGORITHM + " algorithm");
+        final FileHasher hasher = newHasher(options);
+        if (hasher == null) {
             return;
         }
 
-        // :NOTE: process paths. writer's directories.
-        // :FIX: added processing paths and creating writer's directories.
-
-        Path inputFilePath = safePathOf(args[0], "input");
+        Path inputFilePath = safePathOf(options.input, "input");
         if (inputFilePath == null) {
             return;
         }
 
-        Path outputFilePath = safePathOf(args[1], "output");
+        Path outputFilePath = outputPathOf(options.output);
         if (outputFilePath == null) {
             return;
         }
 
+        try (BufferedReader reader = Files.newBufferedReader(inputFilePath, StandardCharsets.UTF_8)) {
+            try (BufferedWriter writer = Files.newBufferedWriter(outputFilePath, StandardCharsets.UTF_8);
+                 HashPipeline pipeline = new HashPipeline(hasher, options.threads, options.inFlight,
+                         (hash, file) -> {
+                             writer.write(hash + " " + file);
+                             writer.newLine();
+                         })) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    processor.process(line, pipeline);
+                }
+            } catch (IOException e) {
+                System.err.printf("Error: cannot open output file (%s)", e.getLocalizedMessage());
+            }
+        } catch (IOException e) {
+            System.err.printf("Error: cannot open input file (%s)", e.getLocalizedMessage());
+        }
+
+        finish(hasher);
+    }
+
+    /**
+     * Creates hasher of the main thread configured by the options.
+     *
+     * @param options parsed options
+     * @return hasher, or {@code null} if options are invalid
+     */
+    static FileHasher newHasher(final WalkOptions options) {
+        FileHasher hasher;
+        try {
+            hasher = new FileHasher(options.algorithm, options.readMode);
+            if (options.treeChunk > 0) {
+                hasher = hasher.withTree(new TreeHasher(options.algorithm, options.treeChunk));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            System.err.println("No such " + options.algorithm + " algorithm");
+            return null;
+        }
+        if (options.cache != null) {
+            final Path cacheFilePath = safePathOf(options.cache, "cache");
+            if (cacheFilePath == null) {
+                return null;
+            }
+            hasher = hasher.withCache(HashCache.open(cacheFilePath, hasher.algorithm(), hasher.digestLength()));
+        }
+        if (options.progress > 0) {
+            hasher = hasher.withMetrics(WalkMetrics.start(options.progress));
+        }
+        return hasher;
+    }
+
+    /**
+     * Saves cache of the hasher and stops its metrics if they are used.
+     *
+     * @param hasher hasher of the main thread
+     */
+    static void finish(final FileHasher hasher) {
+        try {
+            hasher.saveCache();
+        } catch (IOException e) {
+            System.err.printf("Error: cannot save hash cache (%s)%n", e.getLocalizedMessage());
+        }
+        if (hasher.metrics() != null) {
+            hasher.metrics().close();
+        }
+    }
+
+    /**
+     * Returns path to the output file, creating its directories.
+     *
+     * @param output name of the output file
+     * @return path to the output file, or {@code null} if it cannot be created
+     */
+    static Path outputPathOf(final String output) {
+        // :NOTE: process paths. writer's directories.
+        // :FIX: added processing paths and creating writer's directories.
+
+        Path outputFilePath = safePathOf(output, "output");
+        if (outputFilePath == null) {
+            return null;
+        }
+
         // :NOTE: getParent()
         Path parent = outputFilePath.getParent();
         if (!Objects.isNull(parent)) {
@@ -80,22 +146,9 @@ public class Walk {
                 Files.createDirectories(parent);
             } catch (IOException e) {
                 System.err.printf("Error: cannot create directories to output file (%s)", e.getLocalizedMessage());
-                return;
-            }
-        }
-
-        try (BufferedReader reader = Files.newBufferedReader(inputFilePath, StandardCharsets.UTF_8)) {
-            try (BufferedWriter writer = Files.newBufferedWriter(outputFilePath, StandardCharsets.UTF_8)) {
-                String file;
-                while ((file = reader.readLine()) != null) {
-                    writer.write(processFile(file, digest) + " " + file);
-                    writer.newLine();
-                }
-            } catch (IOException e) {
-                System.err.printf("Error: cannot open output file (%s)", e.getLocalizedMessage());
+                return null;
             }
-        } catch (IOException e) {
-            System.err.printf("Error: cannot open input file (%s)", e.getLocalizedMessage());
         }
+        return outputFilePath;
     }
 }
@@ -0,0 +1,234 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress, throughput and latency metrics of a walk. The metrics are thread-safe,
+ * periodically printed to {@link System#err} and exposed through JMX.
+ */
+class WalkMetrics implements WalkMetricsMXBean, AutoCloseable {
+    /**
+     * Name of the MBean.
+     */
+    static final String OBJECT_NAME = "info.kgeorgiy.ja.Podtsepko.walk:type=WalkMetrics";
+
+    private static final int BUCKETS = 40;
+    private static final double MEBIBYTE = 1024 * 1024;
+
+    private final long start = System.nanoTime();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder invalidPaths = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+    private volatile int queueDepth;
+
+    private final ScheduledExecutorService reporter;
+    private ObjectName name;
+    private long reportedFiles;
+    private long reportedBytes;
+    private long reportedAt = start;
+
+    private WalkMetrics(final long period) {
+        reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "WalkMetrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::report, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates metrics, registers the MBean and starts periodic reports.
+     *
+     * @param period period of the reports in seconds
+     * @return started metrics
+     */
+    static WalkMetrics start(final long period) {
+        final WalkMetrics metrics = new WalkMetrics(period);
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+                metrics.name = name;
+            }
+        } catch (JMException | SecurityException e) {
+            System.err.printf("Warning: cannot register walk metrics MBean (%s)%n", e.getLocalizedMessage());
+        }
+        return metrics;
+    }
+
+    /**
+     * Records hashed file.
+     *
+     * @param read  number of read bytes
+     * @param nanos hashing time in nanoseconds
+     */
+    void hashed(final long read, final long nanos) {
+        files.increment();
+        bytes.add(read);
+        final long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        latencies.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+    }
+
+    /**
+     * Records file answered from the cache.
+     *
+     * @param nanos lookup time in nanoseconds
+     */
+    void cached(final long nanos) {
+        cacheHits.increment();
+        hashed(0, nanos);
+    }
+
+    /**
+     * Records line that is not a valid path.
+     */
+    void invalidPath() {
+        invalidPaths.increment();
+    }
+
+    /**
+     * Records file that cannot be read.
+     */
+    void ioError() {
+        ioErrors.increment();
+    }
+
+    /**
+     * Updates number of files that are hashed or wait to be written.
+     *
+     * @param depth current queue depth
+     */
+    void queueDepth(final int depth) {
+        queueDepth = depth;
+    }
+
+    private double perSecond(final long value, final long nanos) {
+        return nanos == 0 ? 0 : value * 1e9 / nanos;
+    }
+
+    @Override
+    public long getFiles() {
+        return files.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public double getFilesPerSecond() {
+        return perSecond(getFiles(), System.nanoTime() - start);
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(getBytes(), System.nanoTime() - start);
+    }
+
+    @Override
+    public long getInvalidPathErrors() {
+        return invalidPaths.sum();
+    }
+
+    @Override
+    public long getIOErrors() {
+        return ioErrors.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        final long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = latencies.get(i);
+        }
+        return histogram;
+    }
+
+    private long percentile(final double fraction) {
+        final long[] histogram = getLatencyHistogram();
+        long total = 0;
+        for (final long count : histogram) {
+            total += count;
+        }
+        final long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long getLatencyP50Micros() {
+        return percentile(0.5);
+    }
+
+    @Override
+    public long getLatencyP99Micros() {
+        return percentile(0.99);
+    }
+
+    private synchronized void report() {
+        final long now = System.nanoTime();
+        final long currentFiles = getFiles();
+        final long currentBytes = getBytes();
+        System.err.printf(
+                "Progress: %d files (%.1f files/s), %.1f MiB (%.1f MiB/s), cache hits: %d, "
+                        + "errors: %d invalid paths, %d I/O, queue: %d, latency: p50 <= %d us, p99 <= %d us%n",
+                currentFiles, perSecond(currentFiles - reportedFiles, now - reportedAt),
+                currentBytes / MEBIBYTE, perSecond(currentBytes - reportedBytes, now - reportedAt) / MEBIBYTE,
+                getCacheHits(), getInvalidPathErrors(), getIOErrors(), getQueueDepth(),
+                getLatencyP50Micros(), getLatencyP99Micros()
+        );
+        reportedFiles = currentFiles;
+        reportedBytes = currentBytes;
+        reportedAt = now;
+    }
+
+    /**
+     * Stops periodic reports, prints the final one and unregisters the MBean.
+     */
+    @Override
+    public void close() {
+        reporter.shutdownNow();
+        synchronized (this) {
+            reportedFiles = 0;
+            reportedBytes = 0;
+            reportedAt = start;
+            report();
+        }
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                System.err.printf("Warning: cannot unregister walk metrics MBean (%s)%n", e.getLocalizedMessage());
+            }
+        }
+    }
+}
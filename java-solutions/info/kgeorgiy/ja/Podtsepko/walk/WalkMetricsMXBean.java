@@ -0,0 +1,85 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+/**
+ * Management interface of the {@link WalkMetrics}, registered in the platform
+ * MBean server as {@value WalkMetrics#OBJECT_NAME}.
+ */
+public interface WalkMetricsMXBean {
+    /**
+     * Returns number of hashed files, including files answered from the cache.
+     *
+     * @return number of files
+     */
+    long getFiles();
+
+    /**
+     * Returns number of files answered from the cache without reading them.
+     *
+     * @return number of cache hits
+     */
+    long getCacheHits();
+
+    /**
+     * Returns number of read bytes.
+     *
+     * @return number of bytes
+     */
+    long getBytes();
+
+    /**
+     * Returns average number of hashed files per second since the start.
+     *
+     * @return files per second
+     */
+    double getFilesPerSecond();
+
+    /**
+     * Returns average number of read bytes per second since the start.
+     *
+     * @return bytes per second
+     */
+    double getBytesPerSecond();
+
+    /**
+     * Returns number of lines that are not valid paths.
+     *
+     * @return number of {@link java.nio.file.InvalidPathException}s
+     */
+    long getInvalidPathErrors();
+
+    /**
+     * Returns number of files that cannot be read.
+     *
+     * @return number of {@link java.io.IOException}s
+     */
+    long getIOErrors();
+
+    /**
+     * Returns number of files that are hashed or wait to be written.
+     *
+     * @return current queue depth
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns histogram of hashing latencies: element {@code i} is the number of files
+     * hashed in less than {@code 2^i} microseconds (and not less than {@code 2^(i-1)}).
+     *
+     * @return counts of the latency buckets
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Returns upper bound of the median hashing latency.
+     *
+     * @return latency in microseconds
+     */
+    long getLatencyP50Micros();
+
+    /**
+     * Returns upper bound of the 99th percentile of hashing latency.
+     *
+     * @return latency in microseconds
+     */
+    long getLatencyP99Micros();
+}
@@ -0,0 +1,195 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class WalkMetricsTest {
+    private static final long MICROSECOND = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private static Path directory;
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(WalkMetricsTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(WalkMetricsTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Output of the action to System.err
+    private static String stderr(final Runnable action) {
+        final PrintStream err = System.err;
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        } finally {
+            System.setErr(err);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static WalkMetrics start() {
+        // Periodic reports are not expected during the test
+        return WalkMetrics.start(TimeUnit.HOURS.toSeconds(1));
+    }
+
+    @Test
+    public void counters() throws IOException, NoSuchAlgorithmException {
+        final Path small = Files.write(directory.resolve("small"), new byte[100]);
+        final Path large = Files.write(directory.resolve("large"), new byte[100_000]);
+        final List<String> paths = List.of(
+                small.toString(), large.toString(), directory.resolve("missing").toString(),
+                directory.toString(), "invalid\0path"
+        );
+        final Path cache = directory.resolve("counters.cache");
+
+        // Cache of the previous run knows only the small file
+        final FileHasher previous = new FileHasher("SHA-1", FileHasher.ReadMode.AUTO)
+                .withCache(HashCache.open(cache, "SHA-1", 20));
+        previous.hash(small.toString());
+        previous.saveCache();
+
+        final WalkMetrics metrics = start();
+        try {
+            final FileHasher hasher = new FileHasher("SHA-1", FileHasher.ReadMode.AUTO)
+                    .withCache(HashCache.open(cache, "SHA-1", 20))
+                    .withMetrics(metrics);
+            assertSame(metrics, hasher.metrics());
+            paths.forEach(hasher::hash);
+
+            assertEquals(2, metrics.getFiles());
+            assertEquals(1, metrics.getCacheHits());
+            assertEquals(100_000, metrics.getBytes());
+            assertEquals(1, metrics.getInvalidPathErrors());
+            assertEquals(2, metrics.getIOErrors());
+            assertEquals(2, total(metrics.getLatencyHistogram()));
+        } finally {
+            stderr(metrics::close);
+        }
+    }
+
+    private static long total(final long[] histogram) {
+        long total = 0;
+        for (final long count : histogram) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Test
+    public void latencies() {
+        final WalkMetrics metrics = start();
+        try {
+            assertEquals(0, metrics.getLatencyP50Micros());
+            assertEquals(0, metrics.getLatencyP99Micros());
+
+            for (int i = 0; i < 99; i++) {
+                metrics.hashed(1, 10 * MICROSECOND);
+            }
+            metrics.hashed(1, 10_000 * MICROSECOND);
+
+            // Buckets are powers of two and give upper bounds of the percentiles
+            final long[] histogram = metrics.getLatencyHistogram();
+            assertEquals(99, histogram[4]);
+            assertEquals(1, histogram[14]);
+            assertEquals(16, metrics.getLatencyP50Micros());
+            assertEquals(16, metrics.getLatencyP99Micros());
+
+            metrics.cached(10_000 * MICROSECOND);
+            assertEquals(16, metrics.getLatencyP50Micros());
+            assertEquals(16_384, metrics.getLatencyP99Micros());
+
+            // Latencies below a microsecond and beyond the last bucket
+            metrics.hashed(0, 0);
+            metrics.hashed(0, Long.MAX_VALUE);
+            assertEquals(1, metrics.getLatencyHistogram()[0]);
+            assertEquals(1, metrics.getLatencyHistogram()[histogram.length - 1]);
+
+            metrics.queueDepth(5);
+            assertEquals(5, metrics.getQueueDepth());
+            assertEquals(103, metrics.getFiles());
+            assertEquals(100, metrics.getBytes());
+        } finally {
+            stderr(metrics::close);
+        }
+    }
+
+    @Test
+    public void mbean() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(WalkMetrics.OBJECT_NAME);
+        assertFalse(server.isRegistered(name));
+        final WalkMetrics metrics = start();
+        assertTrue(server.isRegistered(name));
+        metrics.hashed(10, MICROSECOND);
+        metrics.ioError();
+        assertEquals(1L, server.getAttribute(name, "Files"));
+        assertEquals(10L, server.getAttribute(name, "Bytes"));
+        assertEquals(1L, server.getAttribute(name, "IOErrors"));
+
+        // Metrics of another walk in the same JVM are not registered, but still count
+        final WalkMetrics other = start();
+        other.hashed(20, MICROSECOND);
+        assertEquals(20, other.getBytes());
+        stderr(other::close);
+        assertTrue(server.isRegistered(name));
+        assertEquals(10L, server.getAttribute(name, "Bytes"));
+
+        final String report = stderr(metrics::close);
+        assertTrue(report, report.startsWith("Progress: 1 files"));
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void progressOption() throws IOException, JMException {
+        assertEquals(2, WalkOptions.parse(new String[]{"in", "out", "-progress", "2"}, "Walk").progress);
+        assertNull(WalkOptions.parse(new String[]{"in", "out", "-progress", "0"}, "Walk"));
+
+        final Path file = Files.write(directory.resolve("progress"), new byte[1000]);
+        final Path input = Files.write(directory.resolve("progress.in"), List.of(file.toString(), "invalid\0path"));
+        final Path output = directory.resolve("progress.out");
+        final String report = stderr(() -> Walk.main(new String[]{input.toString(), output.toString(), "-progress", "3600"}));
+
+        assertEquals(2, Files.readAllLines(output).size());
+        // The final report is printed on close
+        assertTrue(report, report.startsWith("Progress: 1 files"));
+        assertTrue(report, report.contains("errors: 1 invalid paths, 0 I/O"));
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(WalkMetrics.OBJECT_NAME)));
+    }
+}
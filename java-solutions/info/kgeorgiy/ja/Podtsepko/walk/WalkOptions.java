@@ -0,0 +1,120 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Command line arguments of {@link Walk} and {@link RecursiveWalk}.
+ * <p>
+ * Usage: <code>input output [-threads N] [-in-flight M] [-io MODE] [-cache FILE] [-algorithm NAME] [-tree-chunk SIZE] [-progress SECONDS]</code>
+ * Where:
+ * <code>input</code> - file with paths, one per line;
+ * <code>output</code> - file for the hashes;
+ * <code>threads</code> - number of hashing workers, {@code 1} by default;
+ * <code>in-flight</code> - maximum number of files hashed at the same time,
+ * {@code threads * 16} by default;
+ * <code>io</code> - the way files are read: {@code auto} (by default), {@code stream},
+ * {@code direct} or {@code mapped}, see {@link FileHasher.ReadMode};
+ * <code>cache</code> - file of the persistent {@link HashCache}, not used by default;
+ * <code>algorithm</code> - digest algorithm, {@code SHA-1} by default: any algorithm
+ * of {@link java.security.MessageDigest} (for example, {@code SHA-256}, {@code SHA-512/256}
+ * or {@code MD5}) or {@code XXH64} for the fast non-cryptographic {@link XxHash64};
+ * <code>tree-chunk</code> - size of chunks of {@link TreeHasher tree hashes} in bytes,
+ * suffixes {@code K}, {@code M} and {@code G} are allowed; plain digests are calculated by default;
+ * <code>progress</code> - period of {@link WalkMetrics progress reports} in seconds,
+ * metrics are not collected by default.
+ */
+class WalkOptions {
+    private static final int IN_FLIGHT_PER_THREAD = 16;
+
+    final String input;
+    final String output;
+    String algorithm = "SHA-1";
+    int threads = 1;
+    int inFlight = -1;
+    FileHasher.ReadMode readMode = FileHasher.ReadMode.AUTO;
+    String cache;
+    long treeChunk;
+    int progress;
+
+    private WalkOptions(final String input, final String output) {
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * Parses arguments and prints error message if they are invalid.
+     *
+     * @param args command line arguments
+     * @param name name of the program for error messages
+     * @return parsed options, or {@code null} if arguments are invalid
+     */
+    static WalkOptions parse(final String[] args, final String name) {
+        if (args == null || args.length < 2 || Arrays.stream(args).anyMatch(Objects::isNull)) {
+            System.err.printf("Error: expected input and output file names as arguments for %s%n", name);
+            return null;
+        }
+        final WalkOptions options = new WalkOptions(args[0], args[1]);
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                System.err.printf("Error: expected value of option %s%n", args[i]);
+                return null;
+            }
+            try {
+                if (!options.set(args[i], args[i + 1])) {
+                    System.err.printf("Error: unknown option %s%n", args[i]);
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.printf("Error: invalid value of option %s (%s)%n", args[i], e.getLocalizedMessage());
+                return null;
+            }
+        }
+        if (options.inFlight < 0) {
+            options.inFlight = options.threads * IN_FLIGHT_PER_THREAD;
+        }
+        return options;
+    }
+
+    private boolean set(final String option, final String value) {
+        switch (option) {
+            case "-threads" -> threads = positive(value);
+            case "-in-flight" -> inFlight = positive(value);
+            case "-algorithm" -> algorithm = value;
+            case "-cache" -> cache = value;
+            case "-tree-chunk" -> treeChunk = size(value);
+            case "-progress" -> progress = positive(value);
+            case "-io" -> readMode = FileHasher.ReadMode.valueOf(value.toUpperCase(Locale.ROOT));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long size(final String value) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("expected size, found empty string");
+        }
+        final int shift = switch (Character.toUpperCase(value.charAt(value.length() - 1))) {
+            case 'K' -> 10;
+            case 'M' -> 20;
+            case 'G' -> 30;
+            default -> 0;
+        };
+        final long result = Long.parseLong(shift == 0 ? value : value.substring(0, value.length() - 1));
+        if (result < 1 || result > Long.MAX_VALUE >> shift) {
+            throw new IllegalArgumentException("expected positive size, found " + value);
+        }
+        return result << shift;
+    }
+
+    private static int positive(final String value) {
+        final int result = Integer.parseInt(value);
+        if (result < 1) {
+            throw new IllegalArgumentException("expected positive number, found " + value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import static org.junit.Assert.*;
+
+public class WalkOptionsTest {
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(WalkOptionsTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    private static WalkOptions parse(final String... args) {
+        return WalkOptions.parse(args, "Walk");
+    }
+
+    @Test
+    public void defaults() {
+        final WalkOptions options = parse("in", "out");
+        assertNotNull(options);
+        assertEquals("SHA-1", options.algorithm);
+        assertEquals(1, options.threads);
+        assertEquals(16, options.inFlight);
+        assertEquals(0, options.treeChunk);
+    }
+
+    @Test
+    public void treeChunk() {
+        assertEquals(100, parse("in", "out", "-tree-chunk", "100").treeChunk);
+        assertEquals(4 << 10, parse("in", "out", "-tree-chunk", "4k").treeChunk);
+        assertEquals(1 << 20, parse("in", "out", "-tree-chunk", "1M").treeChunk);
+        assertEquals(2L << 30, parse("in", "out", "-tree-chunk", "2G").treeChunk);
+    }
+
+    @Test
+    public void invalidTreeChunk() {
+        for (final String value : new String[]{"", "K", "0", "-1K", "x", "9223372036854775807G"}) {
+            assertNull("\"" + value + "\"", parse("in", "out", "-tree-chunk", value));
+        }
+    }
+
+    @Test
+    public void invalidOptions() {
+        assertNull(parse("in"));
+        assertNull(parse("in", "out", "-threads"));
+        assertNull(parse("in", "out", "-threads", "0"));
+        assertNull(parse("in", "out", "-unknown", "1"));
+        assertNull(parse("in", "out", "-io", "fast"));
+    }
+}
@@ -0,0 +1,108 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class WalkTest {
+    private static final String NULL_HASH = "0".repeat(40);
+
+    private static Path directory;
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(WalkTest.class);
+        System.exit(result.getFailureCount());
+    }
+
+    @BeforeClass
+    public static void before() throws IOException {
+        directory = Files.createTempDirectory(WalkTest.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    static String sha1(final byte[] data) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(data));
+    }
+
+    // Lines of the output
+    private static List<String> walk(final String name, final List<String> lines, final String... options) throws IOException {
+        final Path input = Files.write(directory.resolve(name + ".in"), lines);
+        final Path output = directory.resolve(name + ".out");
+        final List<String> args = new ArrayList<>(List.of(input.toString(), output.toString()));
+        args.addAll(List.of(options));
+        Walk.main(args.toArray(String[]::new));
+        return Files.readAllLines(output);
+    }
+
+    @Test
+    public void hashes() throws IOException, NoSuchAlgorithmException {
+        final Random random = new Random(3450987234095872L);
+        final List<String> lines = new ArrayList<>();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final byte[] data = new byte[random.nextInt(100_000)];
+            random.nextBytes(data);
+            final Path file = Files.write(directory.resolve("file-" + i), data);
+            lines.add(file.toString());
+            expected.add(sha1(data) + " " + file);
+            if (i % 10 == 0) {
+                final String missing = directory.resolve("missing-" + i).toString();
+                lines.add(missing);
+                expected.add(NULL_HASH + " " + missing);
+                lines.add("invalid\0" + i);
+                expected.add(NULL_HASH + " invalid\0" + i);
+            }
+        }
+
+        // Output is written in the order of the input, whatever the number of workers
+        assertEquals(expected, walk("sequential", lines));
+        for (final String threads : List.of("2", "4")) {
+            for (final String inFlight : List.of("1", "3", "100")) {
+                assertEquals(threads + " " + inFlight,
+                        expected, walk("parallel", lines, "-threads", threads, "-in-flight", inFlight));
+            }
+        }
+    }
+
+    @Test
+    public void directoryIsNotHashed() throws IOException {
+        assertEquals(List.of(NULL_HASH + " " + directory), walk("directory", List.of(directory.toString()), "-threads", "2"));
+    }
+
+    @Test
+    public void invalidArguments() throws IOException {
+        final Path output = directory.resolve("not-written.out");
+        Walk.main(new String[]{directory.resolve("missing.in").toString(), output.toString()});
+        Walk.main(new String[]{directory.resolve("missing.in").toString(), output.toString(), "-threads", "0"});
+        Walk.main(new String[]{null, output.toString()});
+        Walk.main(null);
+        assertFalse(Files.exists(output));
+    }
+}
@@ -0,0 +1,178 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+
+/**
+ * Pure Java implementation of the non-cryptographic
+ * <a href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">XXH64</a> hash
+ * with zero seed. The digest is the hash in the canonical (big-endian) representation.
+ * <p>
+ * It is much faster than the cryptographic digests and is intended for
+ * deduplication, not for protection against deliberate collisions.
+ */
+class XxHash64 extends MessageDigest {
+    /**
+     * Name of the algorithm.
+     */
+    static final String ALGORITHM = "XXH64";
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+    private static final int DIGEST_LENGTH = 8;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] stripe = new byte[STRIPE];
+    private int buffered;
+    private long length;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    XxHash64() {
+        super(ALGORITHM);
+        engineReset();
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return DIGEST_LENGTH;
+    }
+
+    @Override
+    protected void engineReset() {
+        buffered = 0;
+        length = 0;
+        v1 = PRIME_1 + PRIME_2;
+        v2 = PRIME_2;
+        v3 = 0;
+        v4 = -PRIME_1;
+    }
+
+    @Override
+    protected void engineUpdate(final byte input) {
+        length++;
+        stripe[buffered++] = input;
+        if (buffered == STRIPE) {
+            consume(stripe, 0);
+            buffered = 0;
+        }
+    }
+
+    @Override
+    protected void engineUpdate(final byte[] input, int offset, int len) {
+        length += len;
+        if (buffered > 0) {
+            final int count = Math.min(len, STRIPE - buffered);
+            System.arraycopy(input, offset, stripe, buffered, count);
+            buffered += count;
+            offset += count;
+            len -= count;
+            if (buffered < STRIPE) {
+                return;
+            }
+            consume(stripe, 0);
+            buffered = 0;
+        }
+        for (; len >= STRIPE; offset += STRIPE, len -= STRIPE) {
+            consume(input, offset);
+        }
+        System.arraycopy(input, offset, stripe, 0, len);
+        buffered = len;
+    }
+
+    @Override
+    protected void engineUpdate(final ByteBuffer input) {
+        if (input.hasArray()) {
+            final int position = input.position();
+            engineUpdate(input.array(), input.arrayOffset() + position, input.remaining());
+            input.position(input.limit());
+            return;
+        }
+        // Direct and mapped buffers are read in place, without copying to the heap
+        final ByteBuffer buffer = input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        while (buffered > 0 && buffer.hasRemaining()) {
+            engineUpdate(buffer.get());
+        }
+        if (!buffer.hasRemaining()) {
+            // The input only topped up the partial stripe, which must stay buffered
+            input.position(input.limit());
+            return;
+        }
+        length += buffer.remaining();
+        int position = buffer.position();
+        for (; buffer.limit() - position >= STRIPE; position += STRIPE) {
+            v1 = round(v1, buffer.getLong(position));
+            v2 = round(v2, buffer.getLong(position + 8));
+            v3 = round(v3, buffer.getLong(position + 16));
+            v4 = round(v4, buffer.getLong(position + 24));
+        }
+        buffered = buffer.limit() - position;
+        buffer.get(position, stripe, 0, buffered);
+        input.position(input.limit());
+    }
+
+    private void consume(final byte[] input, final int offset) {
+        v1 = round(v1, (long) LONGS.get(input, offset));
+        v2 = round(v2, (long) LONGS.get(input, offset + 8));
+        v3 = round(v3, (long) LONGS.get(input, offset + 16));
+        v4 = round(v4, (long) LONGS.get(input, offset + 24));
+    }
+
+    private static long round(final long accumulator, final long input) {
+        return Long.rotateLeft(accumulator + input * PRIME_2, 31) * PRIME_1;
+    }
+
+    private static long merge(final long hash, final long accumulator) {
+        return (hash ^ round(0, accumulator)) * PRIME_1 + PRIME_4;
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        long hash;
+        if (length >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = PRIME_5;
+        }
+        hash += length;
+
+        int offset = 0;
+        for (; offset + 8 <= buffered; offset += 8) {
+            hash ^= round(0, (long) LONGS.get(stripe, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        }
+        if (offset + 4 <= buffered) {
+            hash ^= Integer.toUnsignedLong((int) INTS.get(stripe, offset)) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            offset += 4;
+        }
+        for (; offset < buffered; offset++) {
+            hash ^= (stripe[offset] & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+
+        engineReset();
+        return ByteBuffer.allocate(DIGEST_LENGTH).putLong(hash).array();
+    }
+}
@@ -0,0 +1,147 @@
+package info.kgeorgiy.ja.Podtsepko.walk;
+
+import org.junit.Test;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.junit.Assert.*;
+
+public class XxHash64Test {
+    // Lengths and hashes of the pattern below, computed by an independent implementation of the spec
+    private static final int[] LENGTHS = {1, 4, 7, 8, 10, 31, 32, 33, 64, 100, 1000};
+    private static final long[] HASHES = {
+            0x1F25C8D0BC1F4BB6L, 0x9BB64B7D66EE9FDAL, 0x9A7B149959CE60D8L, 0xDAB99D95C6F90092L,
+            0xBD7277D7E2D8A98CL, 0xA2AA5F33CC4A6119L, 0x23C3C17EF790FD97L, 0x50A7CFC7BA588784L,
+            0x0EB64B3EF6EEB01FL, 0xA61F8D4C170FE531L, 0x5F235FA033F1A3FBL,
+    };
+
+    public static void main(final String[] args) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new TextListener(System.out));
+        final Result result = jUnitCore.run(XxHash64Test.class);
+        System.exit(result.getFailureCount());
+    }
+
+    private static byte[] pattern(final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7 + 3);
+        }
+        return bytes;
+    }
+
+    private static long hash(final byte[] digest) {
+        assertEquals(8, digest.length);
+        return ByteBuffer.wrap(digest).getLong();
+    }
+
+    private static long hash(final byte[] input, final int offset, final int length) {
+        final MessageDigest digest = new XxHash64();
+        digest.update(input, offset, length);
+        return hash(digest.digest());
+    }
+
+    private static ByteBuffer direct(final byte[] input, final int from, final int to) {
+        return ByteBuffer.allocateDirect(to - from).put(input, from, to - from).flip();
+    }
+
+    @Test
+    public void referenceStrings() {
+        assertEquals(0xEF46DB3751D8E999L, hash(new byte[0], 0, 0));
+        assertEquals(0xD24EC4F1A98C6E5BL, hash("a".getBytes(StandardCharsets.US_ASCII), 0, 1));
+        assertEquals(0x44BC2CF5AD770999L, hash("abc".getBytes(StandardCharsets.US_ASCII), 0, 3));
+        final byte[] text = "Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0xFBCEA83C8A378BF1L, hash(text, 0, text.length));
+    }
+
+    @Test
+    public void referencePatterns() {
+        for (int i = 0; i < LENGTHS.length; i++) {
+            assertEquals("length " + LENGTHS[i], HASHES[i], hash(pattern(LENGTHS[i]), 0, LENGTHS[i]));
+        }
+    }
+
+    @Test
+    public void emptyBuffers() {
+        final MessageDigest digest = new XxHash64();
+        digest.update(ByteBuffer.allocate(0));
+        digest.update(ByteBuffer.allocateDirect(0));
+        assertEquals(0xEF46DB3751D8E999L, hash(digest.digest()));
+    }
+
+    @Test
+    public void mixedUpdates() {
+        final MessageDigest digest = new XxHash64();
+        for (int i = 0; i < LENGTHS.length; i++) {
+            final byte[] input = pattern(LENGTHS[i]);
+            for (int first = 0; first <= input.length; first++) {
+                for (int second = first; second <= input.length; second += Math.max(1, input.length / 16)) {
+                    digest.update(input, 0, first);
+                    digest.update(direct(input, first, second));
+                    digest.update(ByteBuffer.wrap(input, second, input.length - second));
+                    assertEquals("length " + input.length + ", splits " + first + " " + second,
+                            HASHES[i], hash(digest.digest()));
+
+                    digest.update(direct(input, 0, first));
+                    digest.update(input, first, second - first);
+                    digest.update(direct(input, second, input.length));
+                    assertEquals("length " + input.length + ", direct splits " + first + " " + second,
+                            HASHES[i], hash(digest.digest()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bytewiseDirectUpdates() {
+        final byte[] input = pattern(100);
+        final MessageDigest digest = new XxHash64();
+        for (int i = 0; i < input.length; i++) {
+            digest.update(direct(input, i, i + 1));
+        }
+        assertEquals(HASHES[9], hash(digest.digest()));
+    }
+
+    @Test
+    public void singleByteUpdates() {
+        final MessageDigest digest = new XxHash64();
+        for (int i = 0; i < LENGTHS.length; i++) {
+            final byte[] input = pattern(LENGTHS[i]);
+            // Single bytes before and after a stripe of the array
+            final int from = Math.min(input.length, 5);
+            final int to = Math.max(from, input.length - 3);
+            for (int j = 0; j < from; j++) {
+                digest.update(input[j]);
+            }
+            digest.update(input, from, to - from);
+            for (int j = to; j < input.length; j++) {
+                digest.update(input[j]);
+            }
+            assertEquals("length " + input.length, HASHES[i], hash(digest.digest()));
+
+            for (final byte b : input) {
+                digest.update(b);
+            }
+            assertEquals("length " + input.length + ", bytewise", HASHES[i], hash(digest.digest()));
+        }
+    }
+
+    @Test
+    public void directTailIsKept() {
+        final byte[] first = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        final byte[] second = "0123456780".getBytes(StandardCharsets.US_ASCII);
+        final MessageDigest digest = new XxHash64();
+        digest.update(first, 0, 4);
+        digest.update(direct(first, 4, first.length));
+        final long firstHash = hash(digest.digest());
+        digest.update(second, 0, 4);
+        digest.update(direct(second, 4, second.length));
+        assertNotEquals(firstHash, hash(digest.digest()));
+        assertEquals(hash(first, 0, first.length), firstHash);
+    }
+}
@@ -0,0 +1,43 @@
+#!/bin/bash
+
+# Runs JMH benchmarks and saves results as JSON.
+# Usage: ./run-benchmarks.sh [JMH options] [benchmark regexp], e.g. ./run-benchmarks.sh -p size=1000 ArraySet
+#
+# JMH is not stored in the repository: put jmh-core, jmh-generator-annprocess,
+# jopt-simple and commons-math3 jars to ../lib before running.
+
+KGEORGIY_REPOSITORY="../../java-advanced-2022"
+KGEORGIY_STUDENT_MODULE="${KGEORGIY_REPOSITORY}/modules/info.kgeorgiy.java.advanced.student"
+KGEORGIY_MAPPER_MODULE="${KGEORGIY_REPOSITORY}/modules/info.kgeorgiy.java.advanced.mapper"
+
+# solutions and benchmarks
+SOLUTIONS="../java-solutions/info/kgeorgiy/ja/Podtsepko"
+BENCHMARKS="../java-benchmarks"
+
+LIB="../lib"
+BUILD="../benchmarks-build"
+RESULTS="../benchmark-results"
+
+JMH_CLASSPATH=$(ls ${LIB}/jmh-core-*.jar ${LIB}/jmh-generator-annprocess-*.jar \
+  ${LIB}/jopt-simple-*.jar ${LIB}/commons-math3-*.jar 2>/dev/null | tr '\n' ':')
+if [ -z "${JMH_CLASSPATH}" ]; then
+  echo "Error: JMH jars are not found in ${LIB}" >&2
+  exit 1
+fi
+
+rm -rf ${BUILD}
+mkdir -p ${BUILD} ${RESULTS}
+
+javac -encoding UTF-8 \
+  -cp "${JMH_CLASSPATH}" \
+  -d ${BUILD} \
+  ${KGEORGIY_STUDENT_MODULE}/info/kgeorgiy/java/advanced/student/*.java \
+  ${KGEORGIY_MAPPER_MODULE}/info/kgeorgiy/java/advanced/mapper/ParallelMapper.java \
+  ${SOLUTIONS}/concurrent/ParallelMapperImpl.java \
+  $(find ${SOLUTIONS}/arrayset ${SOLUTIONS}/student ${SOLUTIONS}/walk -maxdepth 1 -name "*.java" ! -name "*Test.java") \
+  $(find ${BENCHMARKS} -name "*.java") || exit 1
+
+java -cp "${BUILD}:${JMH_CLASSPATH}" org.openjdk.jmh.Main \
+  -rf json \
+  -rff "${RESULTS}/$(date +%Y%m%d-%H%M%S)-$(git rev-parse --short HEAD).json" \
+  "$@"